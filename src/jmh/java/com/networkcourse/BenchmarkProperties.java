@@ -0,0 +1,29 @@
+package com.networkcourse;
+
+import java.util.Properties;
+
+final class BenchmarkProperties {
+    private BenchmarkProperties() {}
+
+    /**
+     * Properties pointing every api at {@code baseUrl} with caches and rate limits turned off,
+     * so every benchmark invocation goes through the full request path.
+     */
+    static Properties create(String baseUrl) {
+        Properties properties = new Properties();
+        properties.setProperty("GEOCODE_KEY", "benchmark");
+        properties.setProperty("OPENWEATHER_KEY", "benchmark");
+        properties.setProperty("OPEN_TRIP_MAP_KEY", "benchmark");
+        properties.setProperty("GEOCODING_LIMIT_PLACES", "5");
+        properties.setProperty("OPEN_TRIP_MAP_LIMIT", "100");
+        properties.setProperty("OPEN_TRIP_MAP_RADIUS", "1000");
+        properties.setProperty("GEOCODE_API_URL", baseUrl + "/api/1/geocode");
+        properties.setProperty("OPENWEATHER_API_URL", baseUrl + "/data/2.5/weather");
+        properties.setProperty("OPEN_TRIP_MAP_API_URL", baseUrl + "/0.1/ru/places");
+        for (Endpoint endpoint : Endpoint.values()) {
+            properties.setProperty(endpoint.property("CACHE_TTL_SECONDS"), "0");
+        }
+        properties.setProperty("HTTP_MAX_RETRIES", "0");
+        return properties;
+    }
+}
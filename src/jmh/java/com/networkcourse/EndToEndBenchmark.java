@@ -0,0 +1,43 @@
+package com.networkcourse;
+
+import com.networkcourse.models.GeocodeResponse;
+import com.networkcourse.models.PlaceReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+
+/**
+ * Full CompletableFuture chains against {@link LocalStubServer} with injected upstream latency.
+ */
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+    @Param({"0", "5", "50"})
+    public long latencyMillis;
+
+    private LocalStubServer stub;
+    private RequestManager manager;
+    private PlacePipeline pipeline;
+
+    @Setup
+    public void setUp() {
+        stub = new LocalStubServer(latencyMillis);
+        manager = new RequestManager(BenchmarkProperties.create(stub.baseUrl()), Runnable::run);
+        pipeline = new PlacePipeline(manager);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public List<GeocodeResponse.GeocodePoint> getPlaces() {
+        return manager.getPlaces("Новосибирск").join();
+    }
+
+    @Benchmark
+    public PlaceReport resolvePipeline() {
+        return pipeline.resolve("Новосибирск").join();
+    }
+}
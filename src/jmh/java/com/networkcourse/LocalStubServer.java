@@ -0,0 +1,73 @@
+package com.networkcourse;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process HTTP server answering every api path with a recorded payload after a fixed delay.
+ */
+final class LocalStubServer implements AutoCloseable {
+    static {
+        // headers and body are written separately, without this Nagle adds ~40 ms to every response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ScheduledExecutorService delays = Executors.newScheduledThreadPool(2);
+    private final long latencyMillis;
+
+    LocalStubServer(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.setExecutor(executor);
+        server.createContext("/api/1/geocode", exchange -> reply(exchange, Payloads.load(Payloads.GEOCODE)));
+        server.createContext("/data/2.5/weather", exchange -> reply(exchange, Payloads.load(Payloads.WEATHER)));
+        server.createContext("/0.1/ru/places/radius", exchange -> reply(exchange, Payloads.load(Payloads.RADIUS)));
+        server.createContext("/0.1/ru/places/bbox", exchange -> reply(exchange, Payloads.load(Payloads.RADIUS)));
+        server.createContext("/0.1/ru/places/xid", exchange -> reply(exchange, Payloads.load(Payloads.XID)));
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void reply(HttpExchange exchange, byte[] body) {
+        Runnable write = () -> {
+            try (OutputStream output = exchange.getResponseBody()) {
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                output.write(body);
+            } catch (IOException ignored) {
+                exchange.close();
+            }
+        };
+        if (latencyMillis <= 0) {
+            write.run();
+        } else {
+            delays.schedule(() -> executor.execute(write), latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        delays.shutdownNow();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,53 @@
+package com.networkcourse;
+
+import com.networkcourse.models.GeocodeResponse;
+import com.networkcourse.models.InterestingPlace;
+import com.networkcourse.models.InterestingPlaceInfo;
+import com.networkcourse.models.Weather;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    private RequestManager manager;
+    private byte[] geocode;
+    private byte[] weather;
+    private byte[] radius;
+    private byte[] xid;
+
+    @Setup
+    public void setUp() {
+        manager = new RequestManager(BenchmarkProperties.create("http://127.0.0.1:1"), Runnable::run);
+        geocode = Payloads.load(Payloads.GEOCODE);
+        weather = Payloads.load(Payloads.WEATHER);
+        radius = Payloads.load(Payloads.RADIUS);
+        xid = Payloads.load(Payloads.XID);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public List<GeocodeResponse.GeocodePoint> parseResponsePlace() {
+        return manager.parseResponsePlace(new ByteArrayInputStream(geocode));
+    }
+
+    @Benchmark
+    public Weather parseResponseWeather() {
+        return manager.parseResponseWeather(new ByteArrayInputStream(weather));
+    }
+
+    @Benchmark
+    public List<InterestingPlace> parseResponsePlacesAround() {
+        return manager.parseResponsePlacesAround(new ByteArrayInputStream(radius));
+    }
+
+    @Benchmark
+    public InterestingPlaceInfo parseResponsePlaceInfo() {
+        return manager.parseResponsePlaceInfo(new ByteArrayInputStream(xid));
+    }
+}
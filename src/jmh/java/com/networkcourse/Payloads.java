@@ -0,0 +1,25 @@
+package com.networkcourse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+final class Payloads {
+    static final String GEOCODE = "geocode.json";
+    static final String WEATHER = "weather.json";
+    static final String RADIUS = "radius.json";
+    static final String XID = "xid.json";
+
+    private Payloads() {}
+
+    static byte[] load(String name) {
+        try (InputStream input = Payloads.class.getResourceAsStream("/payloads/" + name)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing payload " + name);
+            }
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
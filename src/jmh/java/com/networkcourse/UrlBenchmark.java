@@ -0,0 +1,45 @@
+package com.networkcourse;
+
+import com.networkcourse.models.GeocodeResponse;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+public class UrlBenchmark {
+    private RequestManager manager;
+    private GeocodeResponse.GeocodePoint point;
+
+    @Setup
+    public void setUp() {
+        manager = new RequestManager(BenchmarkProperties.create("http://127.0.0.1:1"), Runnable::run);
+        point = new GeocodeResponse.GeocodePoint();
+        point.name = "Новосибирск";
+        point.point = new GeocodeResponse.GeocodePoint.Point();
+        point.point.lat = 55.0282171;
+        point.point.lng = 82.9234509;
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public String placesUrl() {
+        return manager.placesUrl("Новосибирск оперный театр");
+    }
+
+    @Benchmark
+    public String weatherUrl() {
+        return manager.weatherUrl(point);
+    }
+
+    @Benchmark
+    public String placesAroundUrl() {
+        return manager.placesAroundUrl(point);
+    }
+
+    @Benchmark
+    public String placeInfoUrl() {
+        return manager.placeInfoUrl("W105327808");
+    }
+}
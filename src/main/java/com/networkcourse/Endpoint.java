@@ -0,0 +1,13 @@
+package com.networkcourse;
+
+public enum Endpoint {
+    GEOCODE,
+    WEATHER,
+    RADIUS,
+    BBOX,
+    XID;
+
+    public String property(String suffix) {
+        return name() + "_" + suffix;
+    }
+}
@@ -0,0 +1,102 @@
+package com.networkcourse;
+
+import com.networkcourse.http.SearchSession;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber that hands items to the FX thread as soon as it is free. Items arriving while an update
+ * is pending are applied with it as one batch. At most {@code batchSize} items are requested ahead of
+ * the FX thread, so a slow FX thread slows down the publisher instead of piling up {@link Platform#runLater} calls.
+ */
+public class FxBatchSubscriber<T> implements Flow.Subscriber<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FxBatchSubscriber.class);
+
+    private final int batchSize;
+    private final SearchSession session;
+    private final Consumer<List<T>> onBatch;
+    private Flow.Subscription subscription;
+    private List<T> batch = new ArrayList<>();
+    private boolean flushPending;
+    private boolean finished;
+    private int received;
+
+    public FxBatchSubscriber(int batchSize, SearchSession session, Consumer<List<T>> onBatch) {
+        this.batchSize = batchSize;
+        this.session = session;
+        this.onBatch = onBatch;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(T item) {
+        if (session.isCancelled()) {
+            subscription.cancel();
+            return;
+        }
+        synchronized (this) {
+            batch.add(item);
+            received++;
+            if (flushPending) {
+                return;
+            }
+            flushPending = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        LOGGER.error("Stream failed after {} items", received, throwable);
+        finish();
+    }
+
+    @Override
+    public void onComplete() {
+        LOGGER.info("Stream completed with {} items", received);
+        finish();
+    }
+
+    private void finish() {
+        synchronized (this) {
+            finished = true;
+            if (flushPending) {
+                return;
+            }
+            flushPending = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    private void flush() {
+        if (session.isCancelled()) {
+            subscription.cancel();
+            return;
+        }
+        List<T> items;
+        boolean done;
+        synchronized (this) {
+            items = batch;
+            batch = new ArrayList<>();
+            flushPending = false;
+            done = finished;
+        }
+        if (!items.isEmpty()) {
+            onBatch.accept(items);
+            if (!done) {
+                subscription.request(items.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.networkcourse;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffers list changes coming from any thread and applies them to an FX list in one bulk update.
+ * Only one {@link Platform#runLater} is pending at a time, whatever the number of changes.
+ */
+public class FxListCoalescer<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FxListCoalescer.class);
+
+    private final String name;
+    private final ObservableList<T> target;
+    private final Runnable refreshAction;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private List<T> replacement;
+    private List<T> added = new ArrayList<>();
+    private List<T> removed = new ArrayList<>();
+    private boolean refresh;
+
+    public FxListCoalescer(String name, ObservableList<T> target, Runnable refreshAction) {
+        this.name = name;
+        this.target = target;
+        this.refreshAction = refreshAction;
+    }
+
+    public synchronized void add(T item) {
+        if (replacement != null) {
+            replacement.add(item);
+        } else {
+            added.add(item);
+        }
+        schedule();
+    }
+
+    public synchronized void remove(T item) {
+        if (replacement != null) {
+            replacement.remove(item);
+        } else if (!added.remove(item)) {
+            removed.add(item);
+        }
+        schedule();
+    }
+
+    public synchronized void setAll(Collection<? extends T> items) {
+        replacement = new ArrayList<>(items);
+        added.clear();
+        removed.clear();
+        schedule();
+    }
+
+    public synchronized void refresh() {
+        refresh = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    private void flush() {
+        scheduled.set(false);
+        List<T> newItems;
+        List<T> toAdd;
+        List<T> toRemove;
+        boolean needsRefresh;
+        synchronized (this) {
+            newItems = replacement;
+            toAdd = added;
+            toRemove = removed;
+            needsRefresh = refresh;
+            replacement = null;
+            added = new ArrayList<>();
+            removed = new ArrayList<>();
+            refresh = false;
+        }
+
+        if (newItems != null) {
+            target.setAll(newItems);
+        }
+        if (!toRemove.isEmpty()) {
+            target.removeAll(new HashSet<>(toRemove));
+        }
+        if (!toAdd.isEmpty()) {
+            target.addAll(toAdd);
+        }
+        if (needsRefresh) {
+            refreshAction.run();
+        }
+        LOGGER.info("{}: {}{} added, {} removed", name, newItems != null ? "replaced, " : "", toAdd.size(),
+                toRemove.size());
+    }
+}
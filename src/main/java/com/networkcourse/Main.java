@@ -1,6 +1,7 @@
 package com.networkcourse;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -9,18 +10,32 @@ import lombok.Getter;
 import lombok.SneakyThrows;
 
 import java.net.URL;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 @Getter
 public class Main extends Application {
-    private static final RequestManager manager = new RequestManager();
+    // built in the background while the FX toolkit starts and the scene loads
+    private static final CompletableFuture<Properties> properties =
+            CompletableFuture.supplyAsync(RequestManager::loadProperties);
+    private static final CompletableFuture<RequestManager> manager = properties.thenApply(loaded -> {
+        RequestManager requestManager = new RequestManager(loaded, Platform::runLater);
+        StartupTimer.mark("request manager ready");
+        return requestManager;
+    });
 
     public static RequestManager getRequestManager() {
-        return manager;
+        return manager.join();
+    }
+
+    public static Properties getProperties() {
+        return properties.join();
     }
 
     @Override
     @SneakyThrows
     public void start(Stage primaryStage) {
+        StartupTimer.mark("FX toolkit started");
         FXMLLoader loader = new FXMLLoader();
         URL xmlUrl = getClass().getResource("/mainScene.fxml");
         loader.setLocation(xmlUrl);
@@ -28,9 +43,20 @@ public class Main extends Application {
 
         primaryStage.setScene(new Scene(root));
         primaryStage.show();
+        StartupTimer.mark("scene shown");
+    }
+
+    @Override
+    public void stop() {
+        if (manager.isDone() && !manager.isCompletedExceptionally()) {
+            manager.join().close();
+        }
     }
 
     public static void main(String[] args) {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
         Application.launch(args);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.networkcourse;
 
+import com.networkcourse.http.SearchSession;
 import com.networkcourse.models.GeocodeResponse;
 import com.networkcourse.models.InterestingPlaceInfo;
 import javafx.application.Platform;
@@ -9,18 +10,20 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.input.MouseEvent;
-import lombok.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
+import java.util.Collections;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.stream.Collectors;
 
 public class MainController implements Initializable {
     @FXML
     public TextField textFieldPlace;
     @FXML
-    public ComboBox<String> comboBoxPlaces;
+    public ComboBox<GeocodeResponse.GeocodePoint> comboBoxPlaces;
     @FXML
     public Button buttonPlaceSearch;
     @FXML
@@ -28,18 +31,26 @@ public class MainController implements Initializable {
     @FXML
     public Label weatherLabel;
 
-    ObservableList<GeocodeResponse.GeocodePoint> comboBoxChoicesList = FXCollections.observableArrayList();
     ObservableMap<String, InterestingPlaceInfo> interestingPlacesMap = FXCollections.observableHashMap();
+    private FxListCoalescer<GeocodeResponse.GeocodePoint> comboBoxUpdates;
+    private FxListCoalescer<InterestingPlaceInfo> listViewUpdates;
+    private SearchSession searchSession = SearchSession.NONE;
+    private PlaceSuggester suggester;
 
+    private static final int PLACE_STREAM_BATCH_SIZE = 100;
     private static final Logger LOGGER = LoggerFactory.getLogger(MainController.class);
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         weatherLabel.setWrapText(true);
         setListViewCellFactory();
+        comboBoxUpdates = new FxListCoalescer<>("Combo box", comboBoxPlaces.getItems(), () -> {});
+        listViewUpdates = new FxListCoalescer<>("List view", listViewInterestingPlaces.getItems(),
+                listViewInterestingPlaces::refresh);
 
-        LOGGER.info("Setting combo box choices list listener");
-        comboBoxChoicesList.addListener(this::setComboBoxChoiceListener);
+        LOGGER.info("Setting place text field listener");
+        textFieldPlace.textProperty().addListener((observable, oldText, newText) ->
+                getSuggester().onTextChanged(newText, comboBoxUpdates::setAll));
 
         LOGGER.info("Setting combo box places listener");
         comboBoxPlaces.valueProperty().addListener(this::setComboBoxPlacesListener);
@@ -48,6 +59,14 @@ public class MainController implements Initializable {
         interestingPlacesMap.addListener(this::interestingPlacesMapListener);
     }
 
+    private PlaceSuggester getSuggester() {
+        // created on first use, so that loading the scene does not wait for the request manager
+        if (suggester == null) {
+            suggester = new PlaceSuggester(Main.getRequestManager(), Main.getProperties());
+        }
+        return suggester;
+    }
+
     private void setListViewCellFactory() {
         listViewInterestingPlaces.setCellFactory(param -> new ListCell<>() {
             @Override
@@ -67,38 +86,53 @@ public class MainController implements Initializable {
         });
     }
 
-    private void setComboBoxChoiceListener(ListChangeListener.Change<? extends GeocodeResponse.GeocodePoint> change) {
-        while (change.next()) {
-            if (change.wasAdded()) {
-                Platform.runLater(() -> {
-                    change.getAddedSubList().forEach(e -> comboBoxPlaces.getItems().add(e.toString()));
-                    LOGGER.info("Combo box added items");
-                });
-            }
-            if (change.wasRemoved()) {
-                Platform.runLater(() -> {
-                    change.getRemoved().forEach(e -> comboBoxPlaces.getItems().remove(e.toString()));
-                    LOGGER.info("Combo box removed items");
-                });
-            }
-        }
-    }
-
-    private void setComboBoxPlacesListener(ObservableValue<? extends String> observable, Object oldValue, Object newValue) {
-        if (newValue == null) {
+    private void setComboBoxPlacesListener(ObservableValue<? extends GeocodeResponse.GeocodePoint> observable,
+                                           GeocodeResponse.GeocodePoint oldValue,
+                                           GeocodeResponse.GeocodePoint chosenPlace) {
+        if (chosenPlace == null) {
             return;
         }
 
+        searchSession.cancel();
+        SearchSession session = new SearchSession();
+        searchSession = session;
+        LOGGER.info("Started search {} for \"{}\"", session.getGeneration(), chosenPlace);
         interestingPlacesMap.clear();
-        GeocodeResponse.GeocodePoint chosenPlace = getChosenGeocodePoint(newValue.toString());
 
-        Main.getRequestManager().getInterestingPlacesAround(chosenPlace)
-                .thenAccept(placesList -> {
-                    placesList.forEach(e -> interestingPlacesMap.put(e.xid, new InterestingPlaceInfo(e)));
-                    LOGGER.info("Added {} interesting places to map", placesList.size());
-                });
+        if (Main.getRequestManager().isStreamingPlacesAround()) {
+            Main.getRequestManager().streamInterestingPlacesAround(chosenPlace, session)
+                    .subscribe(new FxBatchSubscriber<>(PLACE_STREAM_BATCH_SIZE, session, batch -> {
+                        List<InterestingPlaceInfo> places = batch.stream()
+                                .map(InterestingPlaceInfo::new)
+                                .collect(Collectors.toList());
+                        places.forEach(e -> interestingPlacesMap.put(e.xid, e));
+                        Main.getRequestManager().prefetchPlaceInfo(places, ignored -> listViewUpdates.refresh(),
+                                session);
+                    }));
+        } else {
+            Main.getRequestManager().getInterestingPlacesAround(chosenPlace, session)
+                    .thenAccept(placesList -> {
+                        List<InterestingPlaceInfo> places = placesList.stream()
+                                .map(InterestingPlaceInfo::new)
+                                .collect(Collectors.toList());
+                        Platform.runLater(() -> {
+                            if (session.isCancelled()) {
+                                LOGGER.info("Dropped {} places of cancelled search {}", places.size(),
+                                        session.getGeneration());
+                                return;
+                            }
+                            places.forEach(e -> interestingPlacesMap.put(e.xid, e));
+                            LOGGER.info("Added {} interesting places to map", places.size());
+                        });
+                        Main.getRequestManager().prefetchPlaceInfo(places, ignored -> listViewUpdates.refresh(),
+                                session);
+                    });
+        }
 
-        Main.getRequestManager().getWeather(chosenPlace).thenAccept(weather -> {
+        Main.getRequestManager().getWeather(chosenPlace, session).thenAccept(weather -> {
+            if (session.isCancelled()) {
+                return;
+            }
             if (weather.weather == null) {
                 LOGGER.error("Can't get weather info! Weather will not be updated!");
             }
@@ -113,34 +147,25 @@ public class MainController implements Initializable {
     private void interestingPlacesMapListener(
             MapChangeListener.Change<? extends String, ? extends InterestingPlaceInfo> change) {
         if (change.wasRemoved()) {
-            Platform.runLater(() -> {
-                listViewInterestingPlaces.getItems().remove(change.getValueRemoved());
-                LOGGER.info("List view removed {} option", change.getValueRemoved().toString());
-            });
+            listViewUpdates.remove(change.getValueRemoved());
         }
         if (change.wasAdded()) {
-            Platform.runLater(() -> {
-                listViewInterestingPlaces.getItems().add(change.getValueAdded());
-                LOGGER.info("List view added {} option", change.getValueAdded().toString());
-            });
+            listViewUpdates.add(change.getValueAdded());
         }
     }
 
-    @NonNull
-    private GeocodeResponse.GeocodePoint getChosenGeocodePoint(String placeName) {
-        for (GeocodeResponse.GeocodePoint i : comboBoxChoicesList) {
-            if (placeName.equals(i.name + ", " + i.city) || placeName.equals(i.name)) {
-                return i;
-            }
-        }
-        return null;
-    }
-
     public void btnPlaceSearchAction() {
-        comboBoxChoicesList.clear();
+        comboBoxUpdates.setAll(Collections.emptyList());
         if (textFieldPlace.getText() != null && !textFieldPlace.getText().equals("")) {
             LOGGER.info("Text in textField is not empty, going to do a request");
-            Main.getRequestManager().getPlaces(textFieldPlace.getText()).thenAccept(comboBoxChoicesList::addAll);
+            Main.getRequestManager().getPlaces(textFieldPlace.getText()).thenAccept(points -> {
+                if (points != null) {
+                    if (!points.isEmpty()) {
+                        StartupTimer.mark("first result");
+                    }
+                    comboBoxUpdates.setAll(points);
+                }
+            });
         } else {
             LOGGER.warn("Text in textField is empty");
         }
@@ -158,7 +183,8 @@ public class MainController implements Initializable {
 
         LOGGER.info("No attempts to get info for \"{}\", going to make a request",
                 listViewInterestingPlaces.getSelectionModel().getSelectedItem());
-        Main.getRequestManager().addPlaceInfo(listViewInterestingPlaces.getSelectionModel().getSelectedItem())
-                .thenAccept(ignored -> Platform.runLater(() -> listViewInterestingPlaces.refresh()));
+        Main.getRequestManager().addPlaceInfo(listViewInterestingPlaces.getSelectionModel().getSelectedItem(),
+                searchSession)
+                .thenAccept(ignored -> listViewUpdates.refresh());
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.networkcourse;
+
+import com.networkcourse.models.GeocodeResponse;
+import com.networkcourse.models.InterestingPlace;
+import com.networkcourse.models.InterestingPlaceInfo;
+import com.networkcourse.models.PlaceReport;
+import com.networkcourse.models.Weather;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the whole geocode -> weather + interesting places -> place info chain for one query.
+ */
+public class PlacePipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlacePipeline.class);
+
+    private final RequestManager manager;
+
+    public PlacePipeline(RequestManager manager) {
+        this.manager = manager;
+    }
+
+    public CompletableFuture<PlaceReport> resolve(String query) {
+        return manager.getPlaces(query).thenCompose(points -> {
+            PlaceReport report = new PlaceReport(query);
+            if (points == null) {
+                report.locations = Collections.emptyList();
+                return CompletableFuture.completedFuture(report);
+            }
+
+            List<CompletableFuture<PlaceReport.Location>> locations = points.stream()
+                    .map(this::resolveLocation)
+                    .collect(Collectors.toList());
+            return CompletableFuture.allOf(locations.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                report.locations = locations.stream().map(CompletableFuture::join).collect(Collectors.toList());
+                LOGGER.info("Resolved {} locations for \"{}\"", report.locations.size(), query);
+                return report;
+            });
+        });
+    }
+
+    private CompletableFuture<PlaceReport.Location> resolveLocation(GeocodeResponse.GeocodePoint point) {
+        CompletableFuture<Weather> weather = manager.getWeather(point).exceptionally(throwable -> {
+            LOGGER.warn("Can't get weather for \"{}\"", point);
+            return null;
+        });
+        CompletableFuture<List<InterestingPlaceInfo>> places = manager.getInterestingPlacesAround(point)
+                .exceptionally(throwable -> {
+                    LOGGER.warn("Can't get interesting places around \"{}\"", point);
+                    return Collections.emptyList();
+                })
+                .thenCompose(this::resolvePlaceInfo);
+
+        return weather.thenCombine(places, (weatherInfo, placesInfo) -> {
+            PlaceReport.Location location = new PlaceReport.Location();
+            location.place = point;
+            location.weather = weatherInfo;
+            location.interestingPlaces = placesInfo;
+            return location;
+        });
+    }
+
+    private CompletableFuture<List<InterestingPlaceInfo>> resolvePlaceInfo(List<InterestingPlace> places) {
+        List<InterestingPlaceInfo> infos = places.stream()
+                .map(InterestingPlaceInfo::new)
+                .collect(Collectors.toList());
+        CompletableFuture<?>[] loads = infos.stream()
+                .map(info -> manager.addPlaceInfo(info).exceptionally(throwable -> {
+                    LOGGER.warn("Can't get info for \"{}\"", info.xid);
+                    return null;
+                }))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(loads).thenApply(ignored -> infos);
+    }
+}
@@ -0,0 +1,102 @@
+package com.networkcourse;
+
+import com.networkcourse.cache.PrefixCache;
+import com.networkcourse.http.SearchSession;
+import com.networkcourse.models.GeocodeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Type-ahead geocoding. Every text change first gets suggestions from the prefix cache,
+ * then a geocode request is sent once the text has not changed for the quiet period.
+ * A newer text change cancels the pending and in-flight request of the previous one.
+ */
+public class PlaceSuggester {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlaceSuggester.class);
+
+    private final RequestManager manager;
+    private final long debounceMillis;
+    private final int minLength;
+    private final PrefixCache<List<GeocodeResponse.GeocodePoint>> prefixCache;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "place-suggester");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScheduledFuture<?> pending;
+    private SearchSession session = SearchSession.NONE;
+
+    public PlaceSuggester(RequestManager manager, Properties properties) {
+        this(manager,
+                Long.parseLong(properties.getProperty("TYPEAHEAD_DEBOUNCE_MS", "300")),
+                Integer.parseInt(properties.getProperty("TYPEAHEAD_MIN_LENGTH", "3")),
+                Integer.parseInt(properties.getProperty("TYPEAHEAD_CACHE_MAX_ENTRIES", "1000")));
+    }
+
+    public PlaceSuggester(RequestManager manager, long debounceMillis, int minLength, int maxCachedQueries) {
+        this.manager = manager;
+        this.debounceMillis = debounceMillis;
+        this.minLength = minLength;
+        this.prefixCache = new PrefixCache<>(maxCachedQueries);
+    }
+
+    public synchronized void onTextChanged(String text, Consumer<List<GeocodeResponse.GeocodePoint>> suggestions) {
+        session.cancel();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        String query = text == null ? "" : text.trim();
+        String key = normalize(query);
+        if (key.length() < minLength) {
+            return;
+        }
+
+        List<GeocodeResponse.GeocodePoint> exact = prefixCache.get(key);
+        if (exact != null) {
+            LOGGER.info("Suggestions for \"{}\" served from prefix cache", query);
+            suggestions.accept(exact);
+            return;
+        }
+        List<GeocodeResponse.GeocodePoint> prefixHits = prefixCache.longestPrefix(key);
+        if (prefixHits != null) {
+            List<GeocodeResponse.GeocodePoint> refined = prefixHits.stream()
+                    .filter(point -> normalize(point.toString()).contains(key))
+                    .collect(Collectors.toList());
+            LOGGER.info("Refined {} of {} cached suggestions for \"{}\"", refined.size(), prefixHits.size(), query);
+            // an empty refinement would clear the current suggestions until the request answers
+            if (!refined.isEmpty()) {
+                suggestions.accept(refined);
+            }
+        }
+
+        SearchSession current = new SearchSession();
+        session = current;
+        pending = scheduler.schedule(() -> manager.getPlaces(query, current).thenAccept(points -> {
+            if (points == null) {
+                return;
+            }
+            prefixCache.put(key, points);
+            if (!current.isCancelled()) {
+                if (!points.isEmpty()) {
+                    StartupTimer.mark("first result");
+                }
+                suggestions.accept(points);
+            }
+        }), debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+}
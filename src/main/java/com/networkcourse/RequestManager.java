@@ -1,17 +1,61 @@
 package com.networkcourse;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
+import com.networkcourse.cache.DiskStore;
+import com.networkcourse.cache.HotKeyRefresher;
+import com.networkcourse.cache.LruResponseCache;
+import com.networkcourse.cache.ResponseCache;
+import com.networkcourse.cache.SingleFlight;
+import com.networkcourse.cache.TieredResponseCache;
+import com.networkcourse.geo.CoordinateGrid;
+import com.networkcourse.geo.PlaceTileIndex;
+import com.networkcourse.http.HostRateLimiter;
+import com.networkcourse.http.HttpStatusException;
+import com.networkcourse.http.HttpTransport;
+import com.networkcourse.http.JdkHttpTransport;
+import com.networkcourse.http.RecordReplayServer;
+import com.networkcourse.http.RetryPolicy;
+import com.networkcourse.http.SearchSession;
+import com.networkcourse.http.TransportMode;
+import com.networkcourse.metrics.EndpointMetrics;
+import com.networkcourse.metrics.LatencyHistogram;
+import com.networkcourse.metrics.MeteredInputStream;
+import com.networkcourse.metrics.RequestMetrics;
 import com.networkcourse.models.GeocodeResponse;
 import com.networkcourse.models.InterestingPlaceInfo;
 import com.networkcourse.models.InterestingPlace;
@@ -19,35 +63,280 @@ import com.networkcourse.models.Weather;
 import javafx.application.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
-public class RequestManager {
+public class RequestManager implements AutoCloseable {
     private final String GEOCODING_API_KEY;
     private final String OPENWEATHER_API_KEY;
     private final String OPEN_TRIP_MAP_KEY;
     private final ObjectMapper objectMapper;
-    private static final String GEOCODING_API = "https://graphhopper.com/api/1/geocode";
-    private static final String OPENWEATHER_API = "https://api.openweathermap.org/data/2.5/weather";
-    private static final String OPEN_TRIP_MAP_API = "http://api.opentripmap.com/0.1/ru/places/radius";
-    private static final String OPEN_TRIP_MAP_PLACE_INFO_API = "http://api.opentripmap.com/0.1/ru/places/xid";
+    private final ObjectReader placesReader;
+    private final ObjectReader weatherReader;
+    private final ObjectReader interestingPlaceReader;
+    private final ObjectReader placeInfoReader;
+    private final String GEOCODING_API;
+    private final String OPENWEATHER_API;
+    private final String OPEN_TRIP_MAP_API;
+    private final String OPEN_TRIP_MAP_PLACE_INFO_API;
+    private final String OPEN_TRIP_MAP_BBOX_API;
+    private static final String DEFAULT_GEOCODING_API = "https://graphhopper.com/api/1/geocode";
+    private static final String DEFAULT_OPENWEATHER_API = "https://api.openweathermap.org/data/2.5/weather";
+    private static final String DEFAULT_OPEN_TRIP_MAP_API = "http://api.opentripmap.com/0.1/ru/places";
+    private static final String GEOCODE_PATH = "/geocode";
+    private static final String OPENWEATHER_PATH = "/weather";
+    private static final String OPEN_TRIP_MAP_PATH = "/places";
     private static final String OPEN_TRIP_MAP_LANG = "ru";
-    private static int OPEN_TRIP_MAP_RADIUS;
-    private static int OPEN_TRIP_MAP_LIMIT;
+    private final int OPEN_TRIP_MAP_RADIUS;
+    private final int OPEN_TRIP_MAP_LIMIT;
     private static final String OPEN_TRIP_MAP_FORMAT = "json";
     private static final String OPENWEATHER_UNITS = "metric";
     private static final int OPENWEATHER_CITIES_CNT = 1;
     private static final String PROPERTIES_FILE_NAME = "src" + File.separator + "main" + File.separator
             + "properties" + File.separator + "places.properties";
-    private static int GEOCODING_LIMIT_PLACES;
+    private final int GEOCODING_LIMIT_PLACES;
+    private final boolean PLACE_INFO_PREFETCH;
+    private final int PLACE_INFO_PREFETCH_PARALLELISM;
+    private final int PLACE_INDEX_FETCH_LIMIT;
+    private final boolean OPEN_TRIP_MAP_STREAMING;
+    private final int OPEN_TRIP_MAP_STREAM_RADIUS;
+    private final int OPEN_TRIP_MAP_STREAM_LIMIT;
+    private final int OPEN_TRIP_MAP_STREAM_BUFFER;
+    private final long HEDGE_MIN_DELAY_MILLIS;
+    private static final double HEDGE_QUANTILE = 0.95;
+    private static final int HEDGE_MIN_SAMPLES = 20;
     private static final int HTTP_REQUEST_SUCCESS_CODE = 200;
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestManager.class);
 
-    private final HttpClient client;
+    private final HttpTransport transport;
+    private final RecordReplayServer recordReplayServer;
+    private final List<DiskStore> stores = new ArrayList<>();
+    private final Map<Endpoint, Long> deadlineMillis = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Long> requestTimeoutMillis = new EnumMap<>(Endpoint.class);
+    private final Set<Endpoint> hedgedEndpoints = EnumSet.noneOf(Endpoint.class);
+    private final CoordinateGrid weatherGrid;
+    private final HotKeyRefresher<String> weatherRefresher;
+    private final Executor callbackExecutor;
+    private final ResponseCache<String, List<GeocodeResponse.GeocodePoint>> placesCache;
+    private final ResponseCache<String, Weather> weatherCache;
+    private final ResponseCache<String, List<InterestingPlace>> placesAroundCache;
+    private final ResponseCache<String, InterestingPlaceInfo> placeInfoCache;
+    private final SingleFlight<String, List<GeocodeResponse.GeocodePoint>> placesFlights = new SingleFlight<>();
+    private final SingleFlight<String, Weather> weatherFlights = new SingleFlight<>();
+    private final SingleFlight<String, List<InterestingPlace>> placesAroundFlights = new SingleFlight<>();
+    private final SingleFlight<String, InterestingPlaceInfo> placeInfoFlights = new SingleFlight<>();
+    private final Semaphore prefetchPermits;
+    private final HostRateLimiter rateLimiter = new HostRateLimiter();
+    private final RetryPolicy retryPolicy;
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final PlaceTileIndex placeIndex;
+    private final ExecutorService prefetchExecutor;
+    private final ExecutorService streamExecutor;
 
     public RequestManager() {
+        this(Platform::runLater);
+    }
+
+    public RequestManager(Executor callbackExecutor) {
+        this(loadProperties(), callbackExecutor);
+    }
+
+    public RequestManager(Properties properties, Executor callbackExecutor) {
+        this(properties, callbackExecutor, new JdkHttpTransport(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(20))
+                .build()));
+    }
+
+    public RequestManager(Properties properties, Executor callbackExecutor, HttpTransport transport) {
+        this.callbackExecutor = callbackExecutor;
+        this.transport = transport;
         objectMapper = new ObjectMapper();
+        // readers look up their deserializers right away, so the first response is not slowed down by it
+        placesReader = objectMapper.readerFor(GeocodeResponse.class);
+        weatherReader = objectMapper.readerFor(Weather.class);
+        interestingPlaceReader = objectMapper.readerFor(InterestingPlace.class);
+        placeInfoReader = objectMapper.readerFor(InterestingPlaceInfo.class);
+
+        String geocodingApi = properties.getProperty("GEOCODE_API_URL", DEFAULT_GEOCODING_API);
+        String openWeatherApi = properties.getProperty("OPENWEATHER_API_URL", DEFAULT_OPENWEATHER_API);
+        String openTripMapApi = properties.getProperty("OPEN_TRIP_MAP_API_URL", DEFAULT_OPEN_TRIP_MAP_API);
+        LOGGER.info("Got api urls: \"{}\", \"{}\", \"{}\"", geocodingApi, openWeatherApi, openTripMapApi);
+        TransportMode transportMode = TransportMode.valueOf(
+                properties.getProperty("TRANSPORT_MODE", "live").toUpperCase(Locale.ROOT));
+        if (transportMode == TransportMode.LIVE) {
+            recordReplayServer = null;
+            GEOCODING_API = geocodingApi;
+            OPENWEATHER_API = openWeatherApi;
+        } else {
+            recordReplayServer = startRecordReplayServer(properties, transportMode, Map.of(
+                    GEOCODE_PATH, geocodingApi, OPENWEATHER_PATH, openWeatherApi, OPEN_TRIP_MAP_PATH, openTripMapApi));
+            GEOCODING_API = recordReplayServer.baseUrl() + GEOCODE_PATH;
+            OPENWEATHER_API = recordReplayServer.baseUrl() + OPENWEATHER_PATH;
+            openTripMapApi = recordReplayServer.baseUrl() + OPEN_TRIP_MAP_PATH;
+        }
+        OPEN_TRIP_MAP_API = openTripMapApi + "/radius";
+        OPEN_TRIP_MAP_PLACE_INFO_API = openTripMapApi + "/xid";
+        OPEN_TRIP_MAP_BBOX_API = openTripMapApi + "/bbox";
+        GEOCODING_API_KEY = properties.getProperty("GEOCODE_KEY");
+        LOGGER.debug("Got geocoding api key: \"{}\"", GEOCODING_API_KEY);
+        OPENWEATHER_API_KEY = properties.getProperty("OPENWEATHER_KEY");
+        LOGGER.debug("Got open weather api key: \"{}\"", OPENWEATHER_API_KEY);
+        OPEN_TRIP_MAP_KEY = properties.getProperty("OPEN_TRIP_MAP_KEY");
+        LOGGER.debug("Got OpenTripMap api key: \"{}\"", OPEN_TRIP_MAP_KEY);
+        GEOCODING_LIMIT_PLACES = Integer.parseInt(properties.getProperty("GEOCODING_LIMIT_PLACES"));
+        LOGGER.debug("Got max number of options in combo box: \"{}\"", GEOCODING_LIMIT_PLACES);
+        OPEN_TRIP_MAP_LIMIT = Integer.parseInt(properties.getProperty("OPEN_TRIP_MAP_LIMIT"));
+        LOGGER.debug("Got max number of interesting places: \"{}\"", OPEN_TRIP_MAP_LIMIT);
+        OPEN_TRIP_MAP_RADIUS = Integer.parseInt(properties.getProperty("OPEN_TRIP_MAP_RADIUS"));
+        LOGGER.debug("Got search radius of interesting places in meters: \"{}\"", OPEN_TRIP_MAP_RADIUS);
+        OPEN_TRIP_MAP_STREAMING = Boolean.parseBoolean(properties.getProperty("OPEN_TRIP_MAP_STREAMING", "false"));
+        OPEN_TRIP_MAP_STREAM_RADIUS = Integer.parseInt(properties.getProperty("OPEN_TRIP_MAP_STREAM_RADIUS",
+                String.valueOf(OPEN_TRIP_MAP_RADIUS)));
+        OPEN_TRIP_MAP_STREAM_LIMIT = Integer.parseInt(properties.getProperty("OPEN_TRIP_MAP_STREAM_LIMIT", "5000"));
+        OPEN_TRIP_MAP_STREAM_BUFFER = Integer.parseInt(properties.getProperty("OPEN_TRIP_MAP_STREAM_BUFFER", "256"));
+        LOGGER.debug("Got interesting places streaming: \"{}\", radius {}, limit {}, buffer {}", OPEN_TRIP_MAP_STREAMING,
+                OPEN_TRIP_MAP_STREAM_RADIUS, OPEN_TRIP_MAP_STREAM_LIMIT, OPEN_TRIP_MAP_STREAM_BUFFER);
+        PLACE_INFO_PREFETCH = Boolean.parseBoolean(properties.getProperty("PLACE_INFO_PREFETCH", "false"));
+        LOGGER.debug("Got place info prefetch: \"{}\"", PLACE_INFO_PREFETCH);
+        PLACE_INFO_PREFETCH_PARALLELISM = Integer.parseInt(
+                properties.getProperty("PLACE_INFO_PREFETCH_PARALLELISM", "4"));
+        LOGGER.debug("Got max number of parallel place info prefetches: \"{}\"", PLACE_INFO_PREFETCH_PARALLELISM);
+        setRateLimit(properties, "GEOCODE", geocodingApi);
+        setRateLimit(properties, "OPENWEATHER", openWeatherApi);
+        setRateLimit(properties, "OPEN_TRIP_MAP", openTripMapApi);
+        retryPolicy = new RetryPolicy(
+                Integer.parseInt(properties.getProperty("HTTP_MAX_RETRIES", "3")),
+                Long.parseLong(properties.getProperty("HTTP_RETRY_BASE_DELAY_MS", "500")),
+                Long.parseLong(properties.getProperty("HTTP_RETRY_MAX_DELAY_MS", "30000")));
+
+        streamExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "place-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prefetchPermits = new Semaphore(Math.max(1, PLACE_INFO_PREFETCH_PARALLELISM));
+        prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "place-info-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            long deadline = Long.parseLong(properties.getProperty(endpoint.property("DEADLINE_MS"), "0"));
+            deadlineMillis.put(endpoint, deadline);
+            requestTimeoutMillis.put(endpoint, Long.parseLong(properties.getProperty(
+                    endpoint.property("REQUEST_TIMEOUT_MS"), String.valueOf(3 * deadline))));
+            if (Boolean.parseBoolean(properties.getProperty(endpoint.property("HEDGE"), "false"))) {
+                hedgedEndpoints.add(endpoint);
+            }
+        }
+        HEDGE_MIN_DELAY_MILLIS = Long.parseLong(properties.getProperty("HEDGE_MIN_DELAY_MS", "50"));
+        LOGGER.info("Deadlines in ms: {}, request timeouts in ms: {}, hedged requests for {} after p95 latency,"
+                + " at least {} ms", deadlineMillis, requestTimeoutMillis, hedgedEndpoints, HEDGE_MIN_DELAY_MILLIS);
 
+        String storeDirectory = properties.getProperty("STORE_DIRECTORY", "");
+        long storeTtlSeconds = Long.parseLong(properties.getProperty("STORE_TTL_SECONDS", "2592000"));
+        if (!storeDirectory.isBlank()) {
+            LOGGER.info("Persistent store: directory \"{}\", ttl {}s", storeDirectory, storeTtlSeconds);
+        }
+        placesCache = persistent(storeDirectory, Endpoint.GEOCODE, storeTtlSeconds,
+                createCache(properties, Endpoint.GEOCODE, 3600, 1000, 4L << 20,
+                        points -> 64L + 256L * points.size()),
+                new TypeReference<>() {});
+        weatherCache = createCache(properties, Endpoint.WEATHER, 300, 1000, 1L << 20,
+                weather -> 256L);
+        double weatherGridDegrees = Double.parseDouble(properties.getProperty("WEATHER_GRID_DEGREES", "0.05"));
+        long weatherRefreshSeconds = Long.parseLong(properties.getProperty("WEATHER_REFRESH_SECONDS", "240"));
+        long weatherHotSeconds = Long.parseLong(properties.getProperty("WEATHER_HOT_SECONDS", "900"));
+        int weatherHotMaxCells = Integer.parseInt(properties.getProperty("WEATHER_HOT_MAX_CELLS", "100"));
+        LOGGER.info("Weather grid: {} degrees, refresh every {}s cells read within {}s, max {} cells",
+                weatherGridDegrees, weatherRefreshSeconds, weatherHotSeconds, weatherHotMaxCells);
+        weatherGrid = new CoordinateGrid(weatherGridDegrees);
+        weatherRefresher = new HotKeyRefresher<>("weather", weatherRefreshSeconds, weatherHotSeconds,
+                weatherHotMaxCells);
+        placesAroundCache = createCache(properties, Endpoint.RADIUS, 1800, 500, 8L << 20,
+                places -> 64L + 128L * places.size());
+        PLACE_INDEX_FETCH_LIMIT = Integer.parseInt(properties.getProperty("PLACE_INDEX_FETCH_LIMIT", "1000"));
+        if (Boolean.parseBoolean(properties.getProperty("PLACE_INDEX_ENABLED", "false"))) {
+            double tileDegrees = Double.parseDouble(properties.getProperty("PLACE_INDEX_TILE_DEGREES", "0.005"));
+            long ttlSeconds = Long.parseLong(properties.getProperty("PLACE_INDEX_TTL_SECONDS", "86400"));
+            int maxTiles = Integer.parseInt(properties.getProperty("PLACE_INDEX_MAX_TILES", "20000"));
+            LOGGER.info("Place index: tile {} degrees, ttl {}s, max {} tiles, fetch limit {}",
+                    tileDegrees, ttlSeconds, maxTiles, PLACE_INDEX_FETCH_LIMIT);
+            placeIndex = new PlaceTileIndex(tileDegrees, ttlSeconds, maxTiles);
+        } else {
+            placeIndex = null;
+        }
+
+        metrics.registerMBeans();
+        metrics.startSummary(Long.parseLong(properties.getProperty("METRICS_SUMMARY_PERIOD_SECONDS", "60")),
+                rateLimiter);
+
+        placeInfoCache = persistent(storeDirectory, Endpoint.XID, storeTtlSeconds,
+                createCache(properties, Endpoint.XID, 7 * 24 * 3600, 5000, 32L << 20,
+                        info -> 128L + (info.wikipedia_extracts == null || info.wikipedia_extracts.text == null
+                                ? 0 : 2L * info.wikipedia_extracts.text.length())),
+                new TypeReference<>() {});
+
+        if (Boolean.parseBoolean(properties.getProperty("PRECONNECT", "false"))) {
+            preconnect();
+        }
+    }
+
+    /**
+     * Opens connections to the api hosts in the background with HEAD requests, so that DNS lookup,
+     * TCP and TLS handshakes are done before the first real request and the connections are reused by it.
+     */
+    public CompletableFuture<Void> preconnect() {
+        Set<URI> origins = new LinkedHashSet<>();
+        for (String api : List.of(GEOCODING_API, OPENWEATHER_API, OPEN_TRIP_MAP_API)) {
+            URI uri = URI.create(api);
+            origins.add(URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + "/"));
+        }
+        return CompletableFuture.allOf(origins.stream()
+                .map(origin -> {
+                    long start = System.nanoTime();
+                    HttpRequest request = HttpRequest.newBuilder(origin)
+                            .version(HttpClient.Version.HTTP_1_1)
+                            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                            .timeout(Duration.ofSeconds(10))
+                            .build();
+                    return transport.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                            .handle((response, throwable) -> {
+                                if (throwable != null) {
+                                    LOGGER.debug("Could not preconnect to \"{}\": {}", origin, throwable.toString());
+                                } else {
+                                    LOGGER.info("Preconnected to \"{}\" in {} ms", origin,
+                                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                                }
+                                return null;
+                            });
+                })
+                .toArray(CompletableFuture[]::new));
+    }
+
+    private RecordReplayServer startRecordReplayServer(Properties properties, TransportMode mode,
+                                                       Map<String, String> upstreams) {
+        Path directory = Path.of(properties.getProperty("TRANSPORT_DIRECTORY", "recordings"));
+        long latencyMillis = Long.parseLong(properties.getProperty("TRANSPORT_LATENCY_MS", "0"));
+        long latencyJitterMillis = Long.parseLong(properties.getProperty("TRANSPORT_LATENCY_JITTER_MS", "0"));
+        double errorRate = Double.parseDouble(properties.getProperty("TRANSPORT_ERROR_RATE", "0"));
+        LOGGER.info("Transport {}: recordings in \"{}\", latency {}+{} ms, error rate {}", mode, directory,
+                latencyMillis, latencyJitterMillis, errorRate);
+        try {
+            return new RecordReplayServer(mode, directory, upstreams, rateLimiter, latencyMillis, latencyJitterMillis,
+                    errorRate);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start " + mode + " server", e);
+        }
+    }
+
+    public static Properties loadProperties() {
         Properties properties = new Properties();
         try (FileInputStream input = new FileInputStream(PROPERTIES_FILE_NAME)) {
             properties.load(input);
@@ -56,85 +345,389 @@ public class RequestManager {
         } catch (IOException e) {
             LOGGER.error("IOException reading places.properties file!");
         }
-        GEOCODING_API_KEY = properties.getProperty("GEOCODE_KEY");
-        LOGGER.info("Got geocoding api key: \"{}\"", GEOCODING_API_KEY);
-        OPENWEATHER_API_KEY = properties.getProperty("OPENWEATHER_KEY");
-        LOGGER.info("Got open weather api key: \"{}\"", OPENWEATHER_API_KEY);
-        OPEN_TRIP_MAP_KEY = properties.getProperty("OPEN_TRIP_MAP_KEY");
-        LOGGER.info("Got OpenTripMap api key: \"{}\"", OPEN_TRIP_MAP_KEY);
-        GEOCODING_LIMIT_PLACES = Integer.parseInt(properties.getProperty("GEOCODING_LIMIT_PLACES"));
-        LOGGER.info("Got max number of options in combo box: \"{}\"", GEOCODING_LIMIT_PLACES);
-        OPEN_TRIP_MAP_LIMIT = Integer.parseInt(properties.getProperty("OPEN_TRIP_MAP_LIMIT"));
-        LOGGER.info("Got max number of interesting places: \"{}\"", OPEN_TRIP_MAP_LIMIT);
-        OPEN_TRIP_MAP_RADIUS = Integer.parseInt(properties.getProperty("OPEN_TRIP_MAP_RADIUS"));
-        LOGGER.info("Got search radius of interesting places in meters: \"{}\"", OPEN_TRIP_MAP_RADIUS);
+        return properties;
+    }
 
-        client = HttpClient.newBuilder()
-                .version(HttpClient.Version.HTTP_1_1)
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .connectTimeout(Duration.ofSeconds(20))
-                .build();
+    private void setRateLimit(Properties properties, String api, String url) {
+        String host = URI.create(url).getHost();
+        double permitsPerSecond = Double.parseDouble(properties.getProperty(api + "_RATE_LIMIT_PER_SECOND", "0"));
+        int burst = Integer.parseInt(properties.getProperty(api + "_RATE_LIMIT_BURST", "1"));
+        int maxQueued = Integer.parseInt(properties.getProperty(api + "_RATE_LIMIT_MAX_QUEUED", "20"));
+        LOGGER.info("Rate limit for \"{}\": {} requests per second, burst {}, max {} waiting",
+                host, permitsPerSecond, burst, maxQueued);
+        rateLimiter.setLimit(host, permitsPerSecond, burst, maxQueued);
+    }
+
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static <V> LruResponseCache<String, V> createCache(Properties properties, Endpoint endpoint,
+                                                              long defaultTtlSeconds, int defaultMaxEntries,
+                                                              long defaultMaxBytes, ToLongFunction<V> weigher) {
+        long ttlSeconds = Long.parseLong(properties.getProperty(endpoint.property("CACHE_TTL_SECONDS"),
+                String.valueOf(defaultTtlSeconds)));
+        int maxEntries = Integer.parseInt(properties.getProperty(endpoint.property("CACHE_MAX_ENTRIES"),
+                String.valueOf(defaultMaxEntries)));
+        long maxBytes = Long.parseLong(properties.getProperty(endpoint.property("CACHE_MAX_BYTES"),
+                String.valueOf(defaultMaxBytes)));
+        LOGGER.info("{} cache: ttl {}s, max {} entries, max {} bytes", endpoint, ttlSeconds, maxEntries, maxBytes);
+        return new LruResponseCache<>(ttlSeconds, maxEntries, maxBytes, weigher);
+    }
+
+    /**
+     * @return {@code memory} backed by a store in {@code directory}, or {@code memory} itself when the directory
+     * is blank or the store can't be opened. Stored values are kept no longer than the memory ttl,
+     * as they can't be served after it.
+     */
+    private <V> ResponseCache<String, V> persistent(String directory, Endpoint endpoint, long storeTtlSeconds,
+                                                    LruResponseCache<String, V> memory, TypeReference<V> type) {
+        if (directory.isBlank()) {
+            return memory;
+        }
+        long ttlSeconds = Math.min(storeTtlSeconds, memory.getTtlSeconds());
+        DiskStore store;
+        try {
+            store = new DiskStore(Path.of(directory, endpoint.name().toLowerCase(Locale.ROOT) + ".log"), ttlSeconds);
+        } catch (IOException e) {
+            LOGGER.warn("Could not open {} store in \"{}\", using memory cache only", endpoint, directory, e);
+            return memory;
+        }
+        LOGGER.info("{} store: ttl {}s", endpoint, ttlSeconds);
+        stores.add(store);
+        ObjectReader reader = objectMapper.readerFor(type);
+        return new TieredResponseCache<>(memory, store, new TieredResponseCache.Codec<>() {
+            @Override
+            public byte[] encode(V value) throws IOException {
+                return objectMapper.writeValueAsBytes(value);
+            }
+
+            @Override
+            public V decode(byte[] bytes) throws IOException {
+                return reader.readValue(bytes);
+            }
+        });
+    }
+
+    /**
+     * Stops the background threads of this manager: metrics summary, weather refresher,
+     * prefetch and streaming executors and the record/replay server. Closes the persistent stores
+     * and unregisters the metrics MBeans.
+     */
+    @Override
+    public void close() {
+        metrics.stopSummary();
+        metrics.unregisterMBeans();
+        weatherRefresher.close();
+        prefetchExecutor.shutdownNow();
+        streamExecutor.shutdownNow();
+        if (recordReplayServer != null) {
+            recordReplayServer.close();
+        }
+        for (DiskStore store : stores) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                LOGGER.warn("Could not close persistent store", e);
+            }
+        }
+    }
+
+    private <V> CompletableFuture<V> cached(Endpoint endpoint, ResponseCache<String, V> cache,
+                                            SingleFlight<String, V> flights, String key,
+                                            Function<SearchSession, CompletableFuture<V>> loader,
+                                            Predicate<V> cacheable, SearchSession session) {
+        V value = cache.get(key);
+        if (value != null) {
+            LOGGER.info("Cache hit for \"{}\"", key);
+            metrics.get(endpoint).recordCacheHit();
+            return CompletableFuture.completedFuture(value);
+        }
+        metrics.get(endpoint).recordCacheMiss();
+        CompletableFuture<V> loaded = flights.execute(key, flightSession -> loader.apply(flightSession)
+                .thenApply(result -> {
+                    if (result != null && cacheable.test(result)) {
+                        cache.put(key, result);
+                    }
+                    return result;
+                }), session);
+        return withDeadline(endpoint, key, loaded, () -> cache.getStale(key));
+    }
+
+    /**
+     * @return future completed by {@code loaded}, or once the deadline of {@code endpoint} passes with the
+     * {@code fallback} value, or with a {@link TimeoutException} when there is none
+     */
+    private <V> CompletableFuture<V> withDeadline(Endpoint endpoint, String key, CompletableFuture<V> loaded,
+                                                  Supplier<V> fallback) {
+        long deadline = deadlineMillis.get(endpoint);
+        if (deadline <= 0) {
+            return loaded;
+        }
+
+        // the request is left running after the deadline, bounded by the longer request timeout,
+        // so a late answer still refreshes the cache for the next caller
+        CompletableFuture<V> result = new CompletableFuture<>();
+        loaded.whenComplete((loadedValue, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(loadedValue);
+            }
+        });
+        result.whenComplete((ignored, throwable) -> {
+            if (throwable instanceof CancellationException) {
+                loaded.cancel(true);
+            }
+        });
+        CompletableFuture.delayedExecutor(deadline, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            metrics.get(endpoint).recordDeadlineExceeded();
+            V stale = fallback.get();
+            if (stale != null) {
+                LOGGER.warn("{} deadline of {} ms exceeded for \"{}\", using stale value", endpoint, deadline, key);
+                result.complete(stale);
+            } else {
+                LOGGER.warn("{} deadline of {} ms exceeded for \"{}\"", endpoint, deadline, key);
+                result.completeExceptionally(new TimeoutException(endpoint + " deadline of " + deadline + " ms"));
+            }
+        });
+        return result;
     }
 
-    private HttpRequest createRequest(String url) {
-        return HttpRequest.newBuilder()
+    private HttpRequest createRequest(Endpoint endpoint, String url) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .version(HttpClient.Version.HTTP_1_1)
                 .uri(URI.create(url))
-                .GET()
-                .build();
+                .GET();
+        long timeout = requestTimeoutMillis.get(endpoint);
+        if (timeout > 0) {
+            builder.timeout(Duration.ofMillis(timeout));
+        }
+        return builder.build();
     }
 
     public CompletableFuture<List<GeocodeResponse.GeocodePoint>> getPlaces(String place) {
-        String url = String.format(Locale.ENGLISH, "%s?q=%s&limit=%d&key=%s",
+        return getPlaces(place, SearchSession.NONE);
+    }
+
+    public CompletableFuture<List<GeocodeResponse.GeocodePoint>> getPlaces(String place, SearchSession session) {
+        return cached(Endpoint.GEOCODE, placesCache, placesFlights, place,
+                flightSession -> requestPlaces(place, flightSession), points -> true, session);
+    }
+
+    String placesUrl(String place) {
+        return String.format(Locale.ENGLISH, "%s?q=%s&limit=%d&key=%s",
                 GEOCODING_API,
-                place.replaceAll(" ", "%20"),
+                URLEncoder.encode(place, StandardCharsets.UTF_8).replace("+", "%20"),
                 GEOCODING_LIMIT_PLACES,
                 GEOCODING_API_KEY);
+    }
+
+    private CompletableFuture<List<GeocodeResponse.GeocodePoint>> requestPlaces(String place,
+                                                                               SearchSession session) {
+        String url = placesUrl(place);
         LOGGER.info("Generated url: \"{}\" for place: \"{}\"", url, place);
-        HttpRequest request = createRequest(url);
+        HttpRequest request = createRequest(Endpoint.GEOCODE, url);
         LOGGER.info("Send request for url: \"{}\". Waiting for reply", url);
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        return sendHedged(Endpoint.GEOCODE, request, session)
                 .thenApply(this::checkHeader)
                 .thenApply(this::parseResponsePlace);
     }
 
-    private List<GeocodeResponse.GeocodePoint> parseResponsePlace(String response) {
+    List<GeocodeResponse.GeocodePoint> parseResponsePlace(InputStream response) {
         GeocodeResponse parsedResponse;
-        try {
-            parsedResponse = objectMapper.readValue(response, GeocodeResponse.class);
+        try (response) {
+            parsedResponse = placesReader.readValue(response);
             LOGGER.info("Found {} places", parsedResponse.hits.size());
             return parsedResponse.hits;
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             LOGGER.error("Error parsing place JSON!");
         }
         return null;
     }
 
     public CompletableFuture<Weather> getWeather(GeocodeResponse.GeocodePoint place) {
-        String url = String.format(Locale.ENGLISH, "%s?lat=%f&lon=%f&units=%s&cnt=%d&appid=%s",
+        return getWeather(place, SearchSession.NONE);
+    }
+
+    /**
+     * Weather is requested for the centre of the grid cell containing {@code place}, so nearby points
+     * share one request and cache entry. Cells that are read often are refreshed in the background.
+     */
+    public CompletableFuture<Weather> getWeather(GeocodeResponse.GeocodePoint place, SearchSession session) {
+        GeocodeResponse.GeocodePoint centre = weatherGrid.cellCentre(place);
+        String key = pointKey(centre);
+        weatherRefresher.touch(key, () -> weatherFlights.execute(key,
+                flightSession -> requestWeather(centre, flightSession), SearchSession.NONE).thenAccept(weather -> {
+            if (weather != null && weather.weather != null) {
+                weatherCache.put(key, weather);
+            }
+        }));
+        return cached(Endpoint.WEATHER, weatherCache, weatherFlights, key,
+                flightSession -> requestWeather(centre, flightSession), weather -> weather.weather != null, session);
+    }
+
+    private static String pointKey(GeocodeResponse.GeocodePoint place) {
+        return String.format(Locale.ENGLISH, "%f,%f", place.point.lat, place.point.lng);
+    }
+
+    String weatherUrl(GeocodeResponse.GeocodePoint place) {
+        return String.format(Locale.ENGLISH, "%s?lat=%f&lon=%f&units=%s&cnt=%d&appid=%s",
                 OPENWEATHER_API, place.point.lat, place.point.lng, OPENWEATHER_UNITS, OPENWEATHER_CITIES_CNT, OPENWEATHER_API_KEY);
+    }
+
+    private CompletableFuture<Weather> requestWeather(GeocodeResponse.GeocodePoint place, SearchSession session) {
+        String url = weatherUrl(place);
         LOGGER.info("Generated url: \"{}\" to get weather from: \"{}\"", url, place.name);
-        HttpRequest request = createRequest(url);
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        HttpRequest request = createRequest(Endpoint.WEATHER, url);
+        return send(Endpoint.WEATHER, request, 0, session)
                 .thenApply(this::checkHeader)
                 .thenApply(this::parseResponseWeather);
     }
 
-    private String checkHeader(HttpResponse<String> response) {
+    private CompletableFuture<HttpResponse<InputStream>> send(Endpoint endpoint, HttpRequest request, int attempt,
+                                                              SearchSession session) {
+        EndpointMetrics endpointMetrics = metrics.get(endpoint);
+        return rateLimiter.acquire(request.uri().getHost(), session)
+                .thenCompose(ignored -> {
+                    session.checkActive();
+                    long start = endpointMetrics.start();
+                    return session.track(transport.sendAsync(request, responseInfo -> {
+                        long headers = endpointMetrics.recordHeaders(start, responseInfo.statusCode());
+                        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                                body -> (InputStream) new MeteredInputStream(body, endpointMetrics, start, headers));
+                    })).whenComplete((response, throwable) -> {
+                        if (throwable != null) {
+                            endpointMetrics.recordFailure();
+                        }
+                    });
+                })
+                .thenCompose(response -> {
+                    if (session.isCancelled()) {
+                        LOGGER.info("Dropping response from \"{}\": search was cancelled", request.uri().getHost());
+                        close(response);
+                        throw new CancellationException("Search was cancelled");
+                    }
+                    if (!retryPolicy.shouldRetry(response.statusCode(), attempt)) {
+                        if (retryPolicy.isRetryable(response.statusCode())) {
+                            LOGGER.warn("Response code: {} for \"{}\", no retries left",
+                                    response.statusCode(), request.uri().getHost());
+                            discard(response);
+                            return CompletableFuture.failedFuture(
+                                    new HttpStatusException(request.uri().getHost(), response.statusCode()));
+                        }
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    long delay = retryPolicy.delayMillis(response, attempt);
+                    retryPolicy.recordRetry();
+                    LOGGER.warn("Response code: {} for \"{}\", retry {} in {} ms",
+                            response.statusCode(), request.uri().getHost(), attempt + 1, delay);
+                    discard(response);
+                    return CompletableFuture.runAsync(() -> {},
+                                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> send(endpoint, request, attempt + 1, session));
+                });
+    }
+
+    /**
+     * Sends {@code request} and, if hedging is on for {@code endpoint} and it has not been answered
+     * within the p95 latency of the endpoint, sends it once more. The first response wins and
+     * the other attempt is cancelled.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> sendHedged(Endpoint endpoint, HttpRequest request,
+                                                                    SearchSession session) {
+        long delay = hedgeDelayMillis(endpoint);
+        if (delay < 0) {
+            return send(endpoint, request, 0, session);
+        }
+
+        SearchSession primary = new SearchSession();
+        SearchSession hedge = new SearchSession();
+        CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        BiConsumer<HttpResponse<InputStream>, Throwable> onAttempt = (response, throwable) -> {
+            if (throwable == null) {
+                if (!result.complete(response)) {
+                    close(response);
+                }
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(throwable);
+            }
+        };
+        result.whenComplete((response, throwable) -> {
+            primary.cancel();
+            hedge.cancel();
+        });
+        session.track(result);
+
+        send(endpoint, request, 0, primary).whenComplete(onAttempt);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone() || running.getAndIncrement() == 0) {
+                return;
+            }
+            LOGGER.info("No answer from \"{}\" in {} ms, sending hedged request", request.uri().getHost(), delay);
+            metrics.get(endpoint).recordHedge();
+            send(endpoint, request, 0, hedge).whenComplete(onAttempt);
+        });
+        return result;
+    }
+
+    /**
+     * @return delay before a hedged request, or -1 if it should not be sent
+     */
+    private long hedgeDelayMillis(Endpoint endpoint) {
+        if (!hedgedEndpoints.contains(endpoint)) {
+            return -1;
+        }
+        LatencyHistogram latency = metrics.get(endpoint).getTotal();
+        if (latency.count() < HEDGE_MIN_SAMPLES) {
+            return -1;
+        }
+        return Math.max(HEDGE_MIN_DELAY_MILLIS, (long) latency.percentileMillis(HEDGE_QUANTILE));
+    }
+
+    private static void discard(HttpResponse<InputStream> response) {
+        try (InputStream body = response.body()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void close(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private InputStream checkHeader(HttpResponse<InputStream> response) {
         String info = "Response code: " + response.statusCode();
         if (response.statusCode() == HTTP_REQUEST_SUCCESS_CODE) {
             LOGGER.info("{} Success!", info);
-            LOGGER.info(response.body());
         } else {
             LOGGER.info("{} Failure!", info);
         }
-        return response.body();
+        if (!LOGGER.isTraceEnabled()) {
+            return response.body();
+        }
+
+        try (InputStream body = response.body()) {
+            byte[] bytes = body.readAllBytes();
+            LOGGER.trace(new String(bytes, StandardCharsets.UTF_8));
+            return new ByteArrayInputStream(bytes);
+        } catch (IOException e) {
+            LOGGER.error("Error reading response body!");
+            return InputStream.nullInputStream();
+        }
     }
 
-    private Weather parseResponseWeather(String response) {
+    Weather parseResponseWeather(InputStream response) {
         Weather parsedResponse = null;
-        try {
-            parsedResponse = objectMapper.readValue(response, Weather.class);
+        try (response) {
+            parsedResponse = weatherReader.readValue(response);
 
             List<Weather.WeatherDescription> desc = parsedResponse.weather;
             if (desc == null) {
@@ -143,64 +736,305 @@ public class RequestManager {
             }
 
             LOGGER.info("Weather {}, {}°C", parsedResponse.weather.get(0).description, parsedResponse.main.temp);
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             LOGGER.error("Error parsing weather JSON!");
         }
         return parsedResponse;
     }
 
-    private List<InterestingPlace> parseResponsePlacesAround(String response) {
-        List<InterestingPlace> places = new LinkedList<>();
-        try {
-            InterestingPlace[] parsedResponse = objectMapper.readValue(response, InterestingPlace[].class);
-            LOGGER.info(parsedResponse.toString());
-            Arrays.stream(parsedResponse).filter(e -> !e.name.isEmpty()).forEach(places::add);
-            LOGGER.info("Found {} interesting places", places.size());
-        } catch (JsonProcessingException e) {
+    List<InterestingPlace> parseResponsePlacesAround(InputStream response) {
+        List<InterestingPlace> places = new ArrayList<>();
+        parsePlaces(response, places::add);
+        return places;
+    }
+
+    /**
+     * Passes named places from the response to {@code sink} as they are decoded and returns the number
+     * of array elements read, including unnamed ones, or -1 if the response is not a valid array.
+     * Parsing stops early when {@code sink} returns false.
+     */
+    private int parsePlaces(InputStream response, Predicate<InterestingPlace> sink) {
+        int elements = 0;
+        int named = 0;
+        try (response; JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                LOGGER.error("Interesting places response is not a JSON array!");
+                return -1;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                InterestingPlace place = interestingPlaceReader.readValue(parser);
+                elements++;
+                if (place.name != null && !place.name.isEmpty()) {
+                    named++;
+                    if (!sink.test(place)) {
+                        LOGGER.info("Stopped reading interesting places after {}", named);
+                        break;
+                    }
+                }
+            }
+            LOGGER.info("Found {} interesting places", named);
+        } catch (IOException e) {
             LOGGER.error("Error parsing interesting places JSON!");
             e.printStackTrace();
+            return -1;
         }
-        return places;
+        return elements;
     }
 
     public CompletableFuture<List<InterestingPlace>> getInterestingPlacesAround
             (GeocodeResponse.GeocodePoint place) {
-        String url = String.format(Locale.ENGLISH, "%s?lang=%s&radius=%d&lon=%f&lat=%f&format=%s&limit=%d&apikey=%s",
-                OPEN_TRIP_MAP_API, OPEN_TRIP_MAP_LANG, OPEN_TRIP_MAP_RADIUS, place.point.lng, place.point.lat,
-                OPEN_TRIP_MAP_FORMAT, OPEN_TRIP_MAP_LIMIT, OPEN_TRIP_MAP_KEY);
+        return getInterestingPlacesAround(place, SearchSession.NONE);
+    }
+
+    public CompletableFuture<List<InterestingPlace>> getInterestingPlacesAround
+            (GeocodeResponse.GeocodePoint place, SearchSession session) {
+        if (placeIndex != null) {
+            return getIndexedPlacesAround(place, session);
+        }
+        return cached(Endpoint.RADIUS, placesAroundCache, placesAroundFlights, pointKey(place),
+                flightSession -> requestInterestingPlacesAround(place, flightSession), places -> !places.isEmpty(),
+                session);
+    }
+
+    String placesAroundUrl(GeocodeResponse.GeocodePoint place) {
+        return placesAroundUrl(place, OPEN_TRIP_MAP_RADIUS, OPEN_TRIP_MAP_LIMIT);
+    }
+
+    String placesAroundUrl(GeocodeResponse.GeocodePoint place, int radius, int limit) {
+        return String.format(Locale.ENGLISH, "%s?lang=%s&radius=%d&lon=%f&lat=%f&format=%s&limit=%d&apikey=%s",
+                OPEN_TRIP_MAP_API, OPEN_TRIP_MAP_LANG, radius, place.point.lng, place.point.lat,
+                OPEN_TRIP_MAP_FORMAT, limit, OPEN_TRIP_MAP_KEY);
+    }
+
+    public boolean isStreamingPlacesAround() {
+        return OPEN_TRIP_MAP_STREAMING;
+    }
+
+    /**
+     * Publishes interesting places around {@code place} one by one while the response is being parsed.
+     * The request is sent when a subscriber subscribes. Parsing blocks while the subscriber's buffer
+     * is full, so a slow subscriber slows down reading from the socket. Streamed results are not cached.
+     */
+    public Flow.Publisher<InterestingPlace> streamInterestingPlacesAround(GeocodeResponse.GeocodePoint place,
+                                                                         SearchSession session) {
+        return subscriber -> {
+            SubmissionPublisher<InterestingPlace> publisher =
+                    new SubmissionPublisher<>(ForkJoinPool.commonPool(), OPEN_TRIP_MAP_STREAM_BUFFER);
+            publisher.subscribe(subscriber);
+            String url = placesAroundUrl(place, OPEN_TRIP_MAP_STREAM_RADIUS, OPEN_TRIP_MAP_STREAM_LIMIT);
+            LOGGER.info("Generated url: \"{}\" to stream interesting places around the: \"{}\"", url, place.name);
+            // the request has its own session, so cancelling the response aborts it and closes a late body
+            SearchSession requestSession = new SearchSession();
+            CompletableFuture<HttpResponse<InputStream>> response =
+                    session.track(send(Endpoint.RADIUS, createRequest(Endpoint.RADIUS, url), 0, requestSession));
+            response.whenComplete((ignored, throwable) -> {
+                if (throwable instanceof CancellationException) {
+                    requestSession.cancel();
+                }
+            });
+            // the deadline only bounds the wait for the response, once it arrives places keep streaming
+            long deadline = deadlineMillis.get(Endpoint.RADIUS);
+            if (deadline > 0) {
+                CompletableFuture.delayedExecutor(deadline, TimeUnit.MILLISECONDS).execute(() -> {
+                    if (response.isDone()) {
+                        return;
+                    }
+                    metrics.get(Endpoint.RADIUS).recordDeadlineExceeded();
+                    LOGGER.warn("{} deadline of {} ms exceeded for streaming around \"{}\"",
+                            Endpoint.RADIUS, deadline, place.name);
+                    publisher.closeExceptionally(
+                            new TimeoutException(Endpoint.RADIUS + " deadline of " + deadline + " ms"));
+                    response.cancel(true);
+                });
+            }
+            response.thenApply(this::checkHeader)
+                    .thenAcceptAsync(decodedResponse -> parsePlaces(decodedResponse, decoded -> {
+                        if (session.isCancelled() || publisher.isClosed()
+                                || publisher.getNumberOfSubscribers() == 0) {
+                            return false;
+                        }
+                        publisher.submit(decoded);
+                        return true;
+                    }), streamExecutor)
+                    .whenComplete((ignored, throwable) -> {
+                        if (throwable != null) {
+                            publisher.closeExceptionally(throwable);
+                        } else {
+                            publisher.close();
+                        }
+                    });
+        };
+    }
+
+    private CompletableFuture<List<InterestingPlace>> requestInterestingPlacesAround
+            (GeocodeResponse.GeocodePoint place, SearchSession session) {
+        String url = placesAroundUrl(place);
         LOGGER.info("Generated url: \"{}\" to get interesting places around the: \"{}\"", url, place.name);
-        HttpRequest request = createRequest(url);
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        HttpRequest request = createRequest(Endpoint.RADIUS, url);
+        return send(Endpoint.RADIUS, request, 0, session)
                 .thenApply(this::checkHeader)
                 .thenApply(this::parseResponsePlacesAround);
     }
 
+    private CompletableFuture<List<InterestingPlace>> getIndexedPlacesAround(GeocodeResponse.GeocodePoint place,
+                                                                             SearchSession session) {
+        double lat = place.point.lat;
+        double lon = place.point.lng;
+        List<Long> missing = placeIndex.missingTiles(lat, lon, OPEN_TRIP_MAP_RADIUS);
+        if (missing.isEmpty()) {
+            LOGGER.info("Interesting places around \"{}\" are served from local index", place.name);
+            metrics.get(Endpoint.RADIUS).recordCacheHit();
+            return CompletableFuture.completedFuture(
+                    placeIndex.query(lat, lon, OPEN_TRIP_MAP_RADIUS, OPEN_TRIP_MAP_LIMIT));
+        }
+        metrics.get(Endpoint.RADIUS).recordCacheMiss();
+
+        double[] bounds = placeIndex.bounds(missing);
+        String key = String.format(Locale.ENGLISH, "%f,%f,%f,%f", bounds[0], bounds[1], bounds[2], bounds[3]);
+        LOGGER.info("{} index tiles around \"{}\" are missing, requesting {}", missing.size(), place.name, key);
+        CompletableFuture<List<InterestingPlace>> loaded = placesAroundFlights.execute(key,
+                        flightSession -> requestPlacesInBox(bounds, missing, flightSession), session)
+                .thenApply(ignored -> placeIndex.query(lat, lon, OPEN_TRIP_MAP_RADIUS, OPEN_TRIP_MAP_LIMIT));
+        // past the deadline places of expired or neighbouring tiles already in the index are better than none
+        return withDeadline(Endpoint.BBOX, key, loaded, () -> {
+            List<InterestingPlace> known = placeIndex.query(lat, lon, OPEN_TRIP_MAP_RADIUS, OPEN_TRIP_MAP_LIMIT);
+            return known.isEmpty() ? null : known;
+        });
+    }
+
+    String placesInBoxUrl(double[] bounds) {
+        return String.format(Locale.ENGLISH,
+                "%s?lang=%s&lon_min=%f&lat_min=%f&lon_max=%f&lat_max=%f&format=%s&limit=%d&apikey=%s",
+                OPEN_TRIP_MAP_BBOX_API, OPEN_TRIP_MAP_LANG, bounds[0], bounds[1], bounds[2], bounds[3],
+                OPEN_TRIP_MAP_FORMAT, PLACE_INDEX_FETCH_LIMIT, OPEN_TRIP_MAP_KEY);
+    }
+
+    private CompletableFuture<List<InterestingPlace>> requestPlacesInBox(double[] bounds, List<Long> tiles,
+                                                                         SearchSession session) {
+        String url = placesInBoxUrl(bounds);
+        LOGGER.info("Generated url: \"{}\" to fill place index", url);
+        HttpRequest request = createRequest(Endpoint.BBOX, url);
+        return send(Endpoint.BBOX, request, 0, session)
+                .thenApply(this::checkHeader)
+                .thenCompose(response -> {
+                    List<InterestingPlace> places = new ArrayList<>();
+                    int elements = parsePlaces(response, places::add);
+                    placeIndex.addAll(places);
+                    if (elements < 0) {
+                        return CompletableFuture.completedFuture(places);
+                    }
+                    if (elements < PLACE_INDEX_FETCH_LIMIT || tiles.size() == 1) {
+                        if (elements >= PLACE_INDEX_FETCH_LIMIT) {
+                            LOGGER.warn("Place index tile {} has more than {} places, keeping the first ones",
+                                    tiles.get(0), PLACE_INDEX_FETCH_LIMIT);
+                        }
+                        placeIndex.markCovered(tiles);
+                        return CompletableFuture.completedFuture(places);
+                    }
+                    // the box was truncated by the limit: split it so every tile ends up covered
+                    LOGGER.info("Place index fetch hit the limit of {}, splitting {} tiles",
+                            PLACE_INDEX_FETCH_LIMIT, tiles.size());
+                    List<Long> first = tiles.subList(0, tiles.size() / 2);
+                    List<Long> second = tiles.subList(tiles.size() / 2, tiles.size());
+                    CompletableFuture<List<InterestingPlace>> firstPlaces =
+                            requestPlacesInBox(placeIndex.bounds(first), first, session);
+                    CompletableFuture<List<InterestingPlace>> secondPlaces =
+                            requestPlacesInBox(placeIndex.bounds(second), second, session);
+                    return firstPlaces.thenCombine(secondPlaces, (a, b) -> {
+                        List<InterestingPlace> all = new ArrayList<>(a);
+                        all.addAll(b);
+                        return all;
+                    });
+                });
+    }
+
     public CompletableFuture<Void> addPlaceInfo(InterestingPlaceInfo place) {
-        String url = String.format(Locale.ENGLISH, "%s/%s?lang=%s&apikey=%s",
-                OPEN_TRIP_MAP_PLACE_INFO_API, place.xid, OPEN_TRIP_MAP_LANG, OPEN_TRIP_MAP_KEY);
+        return addPlaceInfo(place, SearchSession.NONE);
+    }
+
+    public CompletableFuture<Void> addPlaceInfo(InterestingPlaceInfo place, SearchSession session) {
+        return cached(Endpoint.XID, placeInfoCache, placeInfoFlights, place.xid,
+                flightSession -> requestPlaceInfo(place, flightSession), info -> info.xid != null, session)
+                .thenAccept(info -> applyPlaceInfo(info, place));
+    }
+
+    public CompletableFuture<Void> prefetchPlaceInfo(Collection<InterestingPlaceInfo> places,
+                                                     Consumer<InterestingPlaceInfo> onLoaded) {
+        return prefetchPlaceInfo(places, onLoaded, SearchSession.NONE);
+    }
+
+    public CompletableFuture<Void> prefetchPlaceInfo(Collection<InterestingPlaceInfo> places,
+                                                     Consumer<InterestingPlaceInfo> onLoaded, SearchSession session) {
+        if (!PLACE_INFO_PREFETCH) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<InterestingPlaceInfo> pending = new ArrayList<>(places);
+        List<CompletableFuture<Void>> loads = Collections.synchronizedList(new ArrayList<>());
+        LOGGER.info("Prefetching info for {} interesting places", pending.size());
+        return CompletableFuture.runAsync(() -> {
+            for (InterestingPlaceInfo place : pending) {
+                if (place.triedGetInfo || place.wikipedia_extracts != null) {
+                    continue;
+                }
+                prefetchPermits.acquireUninterruptibly();
+                if (session.isCancelled()) {
+                    prefetchPermits.release();
+                    LOGGER.info("Prefetch stopped: search was cancelled");
+                    return;
+                }
+                loads.add(addPlaceInfo(place, session).whenComplete((ignored, throwable) -> {
+                    prefetchPermits.release();
+                    if (throwable == null) {
+                        onLoaded.accept(place);
+                    } else if (!session.isCancelled()) {
+                        LOGGER.warn("Failed to prefetch info for \"{}\"", place.xid);
+                    }
+                }));
+            }
+        }, prefetchExecutor).thenCompose(ignored ->
+                CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).exceptionally(throwable -> null));
+    }
+
+    String placeInfoUrl(String xid) {
+        return String.format(Locale.ENGLISH, "%s/%s?lang=%s&apikey=%s",
+                OPEN_TRIP_MAP_PLACE_INFO_API, xid, OPEN_TRIP_MAP_LANG, OPEN_TRIP_MAP_KEY);
+    }
+
+    private CompletableFuture<InterestingPlaceInfo> requestPlaceInfo(InterestingPlaceInfo place,
+                                                                    SearchSession session) {
+        String url = placeInfoUrl(place.xid);
         LOGGER.info("Generated url: \"{}\" to get info about place: \"{}\"", url, place);
-        HttpRequest request = createRequest(url);
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        HttpRequest request = createRequest(Endpoint.XID, url);
+        return sendHedged(Endpoint.XID, request, session)
                 .thenApply(this::checkHeader)
-                .thenAccept(response -> parseResponsePlaceInfo(response, place));
+                .thenApply(this::parseResponsePlaceInfo);
     }
 
-    private void parseResponsePlaceInfo(String response, InterestingPlaceInfo place) {
-        Platform.runLater(() -> place.triedGetInfo = true);
-        LOGGER.info(response);
-        try {
-            InterestingPlaceInfo info = objectMapper.readValue(response, InterestingPlaceInfo.class);
-            LOGGER.info("Got description for interesting place: {} description: {}",
-                    info.name, info.wikipedia_extracts.text);
-            Platform.runLater(() -> {
-                place.wikipedia_extracts = info.wikipedia_extracts;
-                LOGGER.info("Added description to {}", info);
-            });
-        } catch (JsonProcessingException e) {
+    InterestingPlaceInfo parseResponsePlaceInfo(InputStream response) {
+        try (response) {
+            return placeInfoReader.readValue(response);
+        } catch (IOException e) {
             LOGGER.error("Error parsing place info JSON!");
             e.printStackTrace();
-        } catch (NullPointerException e) {
+        }
+        return null;
+    }
+
+    private void applyPlaceInfo(InterestingPlaceInfo info, InterestingPlaceInfo place) {
+        callbackExecutor.execute(() -> place.triedGetInfo = true);
+        if (info == null) {
+            return;
+        }
+        if (info.wikipedia_extracts == null) {
             LOGGER.warn("Probably no description for this place");
+            return;
         }
+        LOGGER.info("Got description for interesting place: {} description: {}",
+                info.name, info.wikipedia_extracts.text);
+        callbackExecutor.execute(() -> {
+            place.wikipedia_extracts = info.wikipedia_extracts;
+            LOGGER.info("Added description to {}", info);
+        });
     }
-}
\ No newline at end of file
+}
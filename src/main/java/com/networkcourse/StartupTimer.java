@@ -0,0 +1,28 @@
+package com.networkcourse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs the time since JVM start at which startup phases are reached, when run with
+ * {@code -Dplaces.startupTiming=true}. Every phase is logged once, the first time it is reached.
+ */
+public final class StartupTimer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTimer.class);
+    private static final boolean ENABLED = Boolean.getBoolean("places.startupTiming");
+    private static final Set<String> reached = ConcurrentHashMap.newKeySet();
+
+    private StartupTimer() {}
+
+    public static void mark(String phase) {
+        if (!ENABLED || !reached.add(phase)) {
+            return;
+        }
+        long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        LOGGER.info("Startup: {} after {} ms", phase, millis);
+    }
+}
@@ -0,0 +1,45 @@
+package com.networkcourse.batch;
+
+import com.networkcourse.PlacePipeline;
+import com.networkcourse.RequestManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Headless entry point: {@code BatchMain [input|-] [--output file] [--parallelism n]}.
+ * Does not touch the JavaFX toolkit.
+ */
+public class BatchMain {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchMain.class);
+    private static final int DEFAULT_PARALLELISM = 16;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String inputName = "-";
+        String outputName = "-";
+        int parallelism = DEFAULT_PARALLELISM;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--output" -> outputName = args[++i];
+                case "--parallelism" -> parallelism = Integer.parseInt(args[++i]);
+                default -> inputName = args[i];
+            }
+        }
+        LOGGER.info("Batch mode: input \"{}\", output \"{}\", parallelism {}", inputName, outputName, parallelism);
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        int failures;
+        try (RequestManager manager = new RequestManager(Runnable::run);
+             BufferedReader input = new BufferedReader(new InputStreamReader(
+                inputName.equals("-") ? System.in : new FileInputStream(inputName), StandardCharsets.UTF_8));
+             Writer output = new BufferedWriter(new OutputStreamWriter(
+                     outputName.equals("-") ? System.out : new FileOutputStream(outputName), StandardCharsets.UTF_8))) {
+            failures = new BatchRunner(new PlacePipeline(manager), parallelism).run(input, output);
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.networkcourse.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networkcourse.PlacePipeline;
+import com.networkcourse.models.PlaceReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves place queries line by line and writes one JSON report per line in order of completion.
+ * At most {@code parallelism} queries are in flight, so reading stalls instead of buffering the input.
+ */
+public class BatchRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchRunner.class);
+
+    private final PlacePipeline pipeline;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int parallelism;
+
+    public BatchRunner(PlacePipeline pipeline, int parallelism) {
+        this.pipeline = pipeline;
+        this.parallelism = parallelism;
+    }
+
+    public int run(BufferedReader input, Writer output) throws IOException, InterruptedException {
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicInteger failures = new AtomicInteger();
+        int queries = 0;
+
+        String line;
+        while ((line = input.readLine()) != null) {
+            String query = line.trim();
+            if (query.isEmpty()) {
+                continue;
+            }
+            permits.acquire();
+            queries++;
+            CompletableFuture<PlaceReport> resolved;
+            try {
+                resolved = pipeline.resolve(query);
+            } catch (RuntimeException e) {
+                resolved = CompletableFuture.failedFuture(e);
+            }
+            resolved.handle((report, throwable) -> {
+                try {
+                    if (throwable != null) {
+                        LOGGER.error("Failed to resolve \"{}\"", query, throwable);
+                        failures.incrementAndGet();
+                        report = new PlaceReport(query);
+                        report.error = String.valueOf(
+                                throwable.getCause() != null ? throwable.getCause() : throwable);
+                    }
+                    write(output, report);
+                } finally {
+                    permits.release();
+                }
+                return null;
+            });
+        }
+
+        permits.acquire(parallelism);
+        LOGGER.info("Resolved {} queries, {} failed", queries, failures.get());
+        return failures.get();
+    }
+
+    private void write(Writer output, PlaceReport report) {
+        try {
+            String json = objectMapper.writeValueAsString(report);
+            synchronized (output) {
+                output.write(json);
+                output.write('\n');
+                output.flush();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Can't write report for \"{}\"", report.query, e);
+        }
+    }
+}
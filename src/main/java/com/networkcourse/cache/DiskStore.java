@@ -0,0 +1,313 @@
+package com.networkcourse.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only log of key/value records on disk with an in-memory index of where each value lives.
+ * The index is rebuilt by scanning the log on a background thread, lookups before that finish are misses.
+ * Values are read with positional reads, writes and compaction run on the same background thread.
+ * The log is rewritten without overwritten and expired records once they take more space than live ones.
+ *
+ * <p>Record layout: {@code int keyLength, int valueLength, long writtenAtMillis, key (UTF-8), value}.
+ */
+public class DiskStore implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskStore.class);
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    private static final long COMPACT_MIN_BYTES = 1L << 20;
+
+    private static class Location {
+        final long valueOffset;
+        final int valueLength;
+        final long writtenAt;
+        final int recordLength;
+
+        Location(long valueOffset, int valueLength, long writtenAt, int recordLength) {
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.writtenAt = writtenAt;
+            this.recordLength = recordLength;
+        }
+    }
+
+    public static class StoredValue {
+        public final byte[] value;
+        public final long writtenAtMillis;
+
+        StoredValue(byte[] value, long writtenAtMillis) {
+            this.value = value;
+            this.writtenAtMillis = writtenAtMillis;
+        }
+    }
+
+    private final Path file;
+    private final long ttlMillis;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ReadWriteLock channelLock = new ReentrantReadWriteLock();
+    private final ExecutorService background;
+    private final CompletableFuture<Void> loaded;
+    private FileChannel channel;
+    private volatile boolean closed;
+    private long end;
+    private long liveBytes;
+
+    public DiskStore(Path file, long ttlSeconds) throws IOException {
+        this.file = file;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        background = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "disk-store-" + file.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        loaded = CompletableFuture.runAsync(this::load, background);
+    }
+
+    /**
+     * @return stored value, or {@code null} when it is missing, expired, the log is still loading
+     * or it could not be read
+     */
+    public byte[] get(String key) {
+        StoredValue stored = getStored(key);
+        return stored == null ? null : stored.value;
+    }
+
+    /**
+     * Same as {@link #get(String)}, along with the time the value was written.
+     */
+    public StoredValue getStored(String key) {
+        if (!loaded.isDone() || closed) {
+            return null;
+        }
+        ByteBuffer buffer;
+        long writtenAt;
+        channelLock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null || isExpired(location, System.currentTimeMillis())) {
+                return null;
+            }
+            buffer = ByteBuffer.allocate(location.valueLength);
+            writtenAt = location.writtenAt;
+            long position = location.valueOffset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Record of \"" + key + "\" is truncated");
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not read \"{}\" from {}", key, file, e);
+            return null;
+        } finally {
+            channelLock.readLock().unlock();
+        }
+        return new StoredValue(buffer.array(), writtenAt);
+    }
+
+    /**
+     * Appends {@code value} in the background, does nothing once the store is closed.
+     */
+    public void put(String key, byte[] value) {
+        execute(() -> {
+            try {
+                append(key, value);
+                compactIfNeeded();
+            } catch (IOException e) {
+                LOGGER.warn("Could not write \"{}\" to {}", key, file, e);
+            }
+        });
+    }
+
+    public void clear() {
+        execute(() -> {
+            channelLock.writeLock().lock();
+            try {
+                channel.truncate(0);
+                index.clear();
+                end = 0;
+                liveBytes = 0;
+            } catch (IOException e) {
+                LOGGER.warn("Could not clear {}", file, e);
+            } finally {
+                channelLock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public CompletableFuture<Void> getLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        background.shutdown();
+        try {
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void execute(Runnable task) {
+        if (closed) {
+            return;
+        }
+        try {
+            background.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("{} is closed, dropping a write", file);
+        }
+    }
+
+    private boolean isExpired(Location location, long now) {
+        return ttlMillis <= 0 || now - location.writtenAt >= ttlMillis;
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        long position = 0;
+        long now = System.currentTimeMillis();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                int keyLength;
+                try {
+                    keyLength = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int valueLength = input.readInt();
+                long writtenAt = input.readLong();
+                if (keyLength < 0 || valueLength < 0) {
+                    LOGGER.warn("{} has a corrupt record at {}", file, position);
+                    break;
+                }
+                byte[] key = input.readNBytes(keyLength);
+                if (key.length < keyLength) {
+                    throw new EOFException();
+                }
+                input.skipNBytes(valueLength);
+                int recordLength = HEADER_BYTES + keyLength + valueLength;
+                index(new String(key, StandardCharsets.UTF_8),
+                        new Location(position + HEADER_BYTES + keyLength, valueLength, writtenAt, recordLength), now);
+                position += recordLength;
+            }
+        } catch (EOFException e) {
+            LOGGER.warn("{} ends with a truncated record at {}", file, position);
+        } catch (IOException e) {
+            LOGGER.warn("Could not load {}", file, e);
+        }
+        end = position;
+        try {
+            if (channel.size() > end) {
+                channel.truncate(end);
+            }
+            compactIfNeeded();
+        } catch (IOException e) {
+            LOGGER.warn("Could not repair {}", file, e);
+        }
+        LOGGER.info("Loaded {} entries from {} in {} ms", index.size(), file,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void index(String key, Location location, long now) {
+        Location previous = isExpired(location, now) ? index.remove(key) : index.put(key, location);
+        if (previous != null) {
+            liveBytes -= previous.recordLength;
+        }
+        if (!isExpired(location, now)) {
+            liveBytes += location.recordLength;
+        }
+    }
+
+    private void append(String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long now = System.currentTimeMillis();
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + value.length);
+        record.putInt(keyBytes.length).putInt(value.length).putLong(now).put(keyBytes).put(value).flip();
+        long position = end;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        index(key, new Location(end + HEADER_BYTES + keyBytes.length, value.length, now, record.capacity()), now);
+        end = position;
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (end < COMPACT_MIN_BYTES || end - liveBytes <= liveBytes) {
+            return;
+        }
+        long start = System.nanoTime();
+        long before = end;
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        Map<String, Location> compactedIndex = new ConcurrentHashMap<>();
+        long position = 0;
+        long now = System.currentTimeMillis();
+        try (FileChannel output = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                Location location = entry.getValue();
+                if (isExpired(location, now)) {
+                    continue;
+                }
+                long recordStart = location.valueOffset - (location.recordLength - location.valueLength);
+                long transferred = 0;
+                while (transferred < location.recordLength) {
+                    transferred += channel.transferTo(recordStart + transferred,
+                            location.recordLength - transferred, output);
+                }
+                compactedIndex.put(entry.getKey(), new Location(
+                        position + (location.valueOffset - recordStart), location.valueLength,
+                        location.writtenAt, location.recordLength));
+                position += location.recordLength;
+            }
+            output.force(false);
+        }
+
+        channelLock.writeLock().lock();
+        try {
+            channel.close();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index.clear();
+            index.putAll(compactedIndex);
+            end = position;
+            liveBytes = position;
+        } finally {
+            channelLock.writeLock().unlock();
+        }
+        LOGGER.info("Compacted {} from {} to {} bytes in {} ms", file, before, end,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,102 @@
+package com.networkcourse.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Periodically reloads keys that were read recently, so that their cache entries are
+ * replaced before they expire and reads of hot keys never wait for the network.
+ * Keys that have not been read for the hot window are forgotten.
+ */
+public class HotKeyRefresher<K> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotKeyRefresher.class);
+
+    private static class HotKey {
+        final Supplier<CompletableFuture<?>> refresh;
+        volatile long lastReadAt;
+
+        HotKey(Supplier<CompletableFuture<?>> refresh, long lastReadAt) {
+            this.refresh = refresh;
+            this.lastReadAt = lastReadAt;
+        }
+    }
+
+    private final String name;
+    private final long hotNanos;
+    private final int maxKeys;
+    private final Map<K, HotKey> keys = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public HotKeyRefresher(String name, long refreshSeconds, long hotSeconds, int maxKeys) {
+        this.name = name;
+        this.hotNanos = TimeUnit.SECONDS.toNanos(hotSeconds);
+        this.maxKeys = maxKeys;
+        if (refreshSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name + "-refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::refreshHotKeys, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Records a read of {@code key}, {@code refresh} is used to reload it while it stays hot.
+     */
+    public void touch(K key, Supplier<CompletableFuture<?>> refresh) {
+        long now = System.nanoTime();
+        HotKey hotKey = keys.get(key);
+        if (hotKey != null) {
+            hotKey.lastReadAt = now;
+        } else if (keys.size() < maxKeys) {
+            keys.put(key, new HotKey(refresh, now));
+        }
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        keys.clear();
+    }
+
+    private void refreshHotKeys() {
+        long now = System.nanoTime();
+        int refreshed = 0;
+        for (Iterator<Map.Entry<K, HotKey>> iterator = keys.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<K, HotKey> entry = iterator.next();
+            if (now - entry.getValue().lastReadAt >= hotNanos) {
+                iterator.remove();
+                continue;
+            }
+            K key = entry.getKey();
+            try {
+                entry.getValue().refresh.get().whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        LOGGER.warn("{}: refresh of \"{}\" failed: {}", name, key, throwable.toString());
+                    }
+                });
+                refreshed++;
+            } catch (RuntimeException e) {
+                LOGGER.warn("{}: refresh of \"{}\" failed", name, key, e);
+            }
+        }
+        LOGGER.info("{}: refreshing {} hot keys", name, refreshed);
+    }
+}
@@ -0,0 +1,106 @@
+package com.networkcourse.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory cache with a time to live, a maximum number of entries and a memory budget.
+ * Entries are evicted in least recently used order once either limit is exceeded.
+ * Expired entries are kept until they are replaced or evicted, so they can still be served as stale values.
+ */
+public class LruResponseCache<K, V> implements ResponseCache<K, V> {
+    private static class Entry<V> {
+        final V value;
+        final long weight;
+        final long expiresAt;
+
+        Entry(V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private long totalWeight;
+
+    public LruResponseCache(long ttlSeconds, int maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    @Override
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || System.nanoTime() - entry.expiresAt >= 0) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public synchronized V getStale(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        put(key, value, 0);
+    }
+
+    @Override
+    public synchronized void put(K key, V value, long ageMillis) {
+        long remainingNanos = ttlNanos - TimeUnit.MILLISECONDS.toNanos(ageMillis);
+        if (remainingNanos <= 0 || maxEntries <= 0) {
+            return;
+        }
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight) {
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.nanoTime() + remainingNanos));
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += weight;
+        evictIfNeeded();
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getTtlSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(ttlNanos);
+    }
+
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalWeight > maxWeight) && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            totalWeight -= eldest.getValue().weight;
+            iterator.remove();
+        }
+    }
+}
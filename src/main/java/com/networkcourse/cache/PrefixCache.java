@@ -0,0 +1,66 @@
+package com.networkcourse.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trie of query strings. Besides exact lookups it finds the value stored for the longest
+ * cached prefix of a query, so results for "novo" can be narrowed down for "novosib".
+ * When the number of entries exceeds the limit the whole trie is dropped.
+ */
+public class PrefixCache<V> {
+    private static class Node<V> {
+        final Map<Character, Node<V>> children = new HashMap<>();
+        V value;
+    }
+
+    private final int maxEntries;
+    private Node<V> root = new Node<>();
+    private int size;
+
+    public PrefixCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public synchronized void put(String key, V value) {
+        if (size >= maxEntries) {
+            root = new Node<>();
+            size = 0;
+        }
+        Node<V> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), ignored -> new Node<>());
+        }
+        if (node.value == null) {
+            size++;
+        }
+        node.value = value;
+    }
+
+    public synchronized V get(String key) {
+        Node<V> node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        return node == null ? null : node.value;
+    }
+
+    public synchronized V longestPrefix(String key) {
+        Node<V> node = root;
+        V found = null;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                found = node.value;
+            }
+        }
+        return found;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,25 @@
+package com.networkcourse.cache;
+
+public interface ResponseCache<K, V> {
+    V get(K key);
+
+    /**
+     * @return value of {@code key} even if it has expired, or {@code null} if it is no longer kept
+     */
+    default V getStale(K key) {
+        return null;
+    }
+
+    void put(K key, V value);
+
+    /**
+     * Puts a value that was loaded {@code ageMillis} ago, so it expires that much earlier.
+     */
+    default void put(K key, V value, long ageMillis) {
+        put(key, value);
+    }
+
+    void invalidateAll();
+
+    int size();
+}
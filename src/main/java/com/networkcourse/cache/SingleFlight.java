@@ -0,0 +1,83 @@
+package com.networkcourse.cache;
+
+import com.networkcourse.http.SearchSession;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load is in flight every caller
+ * asking for that key joins it. The key is released once the load completes or fails.
+ * Every caller gets its own future, cancelling it leaves the flight, and the load itself
+ * is cancelled through its own session when the last caller leaves.
+ */
+public class SingleFlight<K, V> {
+    private class Flight {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final SearchSession session = new SearchSession();
+        private int callers;
+        private boolean abandoned;
+
+        synchronized CompletableFuture<V> join(SearchSession caller) {
+            if (abandoned) {
+                return null;
+            }
+            callers++;
+            CompletableFuture<V> result = future.copy();
+            result.whenComplete((value, throwable) -> {
+                if (throwable instanceof CancellationException) {
+                    leave();
+                }
+            });
+            return caller.track(result);
+        }
+
+        private synchronized void leave() {
+            callers--;
+            if (callers == 0 && !future.isDone()) {
+                abandoned = true;
+                session.cancel();
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<K, Flight> inFlight = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> execute(K key, Function<SearchSession, CompletableFuture<V>> loader,
+                                        SearchSession caller) {
+        while (true) {
+            Flight flight = new Flight();
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                CompletableFuture<V> joined = existing.join(caller);
+                if (joined != null) {
+                    return joined;
+                }
+                inFlight.remove(key, existing);
+                continue;
+            }
+
+            CompletableFuture<V> joined = flight.join(caller);
+            try {
+                loader.apply(flight.session).whenComplete((value, throwable) -> {
+                    inFlight.remove(key, flight);
+                    if (throwable != null) {
+                        flight.future.completeExceptionally(throwable);
+                    } else {
+                        flight.future.complete(value);
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.remove(key, flight);
+                flight.future.completeExceptionally(e);
+            }
+            return joined;
+        }
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.networkcourse.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * In-memory cache backed by a {@link DiskStore}. Misses in memory are looked up on disk
+ * and promoted back into memory with the age they had on disk, so entries survive restarts
+ * of the application but are not served longer than the memory ttl.
+ */
+public class TieredResponseCache<V> implements ResponseCache<String, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TieredResponseCache.class);
+
+    public interface Codec<V> {
+        byte[] encode(V value) throws IOException;
+
+        V decode(byte[] bytes) throws IOException;
+    }
+
+    private final ResponseCache<String, V> memory;
+    private final DiskStore disk;
+    private final Codec<V> codec;
+
+    public TieredResponseCache(ResponseCache<String, V> memory, DiskStore disk, Codec<V> codec) {
+        this.memory = memory;
+        this.disk = disk;
+        this.codec = codec;
+    }
+
+    @Override
+    public V get(String key) {
+        V value = memory.get(key);
+        if (value != null) {
+            return value;
+        }
+        DiskStore.StoredValue stored = disk.getStored(key);
+        if (stored == null) {
+            return null;
+        }
+        try {
+            value = codec.decode(stored.value);
+        } catch (IOException e) {
+            LOGGER.warn("Could not decode stored value of \"{}\"", key, e);
+            return null;
+        }
+        memory.put(key, value, Math.max(0, System.currentTimeMillis() - stored.writtenAtMillis));
+        // the memory tier refuses values older than its ttl, those are not served from disk either
+        return memory.get(key);
+    }
+
+    @Override
+    public V getStale(String key) {
+        return memory.getStale(key);
+    }
+
+    @Override
+    public void put(String key, V value) {
+        memory.put(key, value);
+        try {
+            disk.put(key, codec.encode(value));
+        } catch (IOException e) {
+            LOGGER.warn("Could not encode value of \"{}\"", key, e);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        memory.invalidateAll();
+        disk.clear();
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+}
@@ -0,0 +1,35 @@
+package com.networkcourse.geo;
+
+import com.networkcourse.models.GeocodeResponse;
+
+/**
+ * Snaps points to the centre of fixed-size latitude/longitude cells, so that lookups
+ * for nearby points resolve to the same point and can share one request.
+ */
+public class CoordinateGrid {
+    private final double cellDegrees;
+
+    public CoordinateGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    /**
+     * @return centre of the cell containing {@code place}, or {@code place} itself if the grid is turned off
+     */
+    public GeocodeResponse.GeocodePoint cellCentre(GeocodeResponse.GeocodePoint place) {
+        if (cellDegrees <= 0) {
+            return place;
+        }
+        GeocodeResponse.GeocodePoint centre = new GeocodeResponse.GeocodePoint();
+        centre.name = place.name;
+        centre.city = place.city;
+        centre.point = new GeocodeResponse.GeocodePoint.Point();
+        centre.point.lat = Math.max(-90, Math.min(90, snap(place.point.lat)));
+        centre.point.lng = Math.max(-180, Math.min(180, snap(place.point.lng)));
+        return centre;
+    }
+
+    private double snap(double degrees) {
+        return (Math.floor(degrees / cellDegrees) + 0.5) * cellDegrees;
+    }
+}
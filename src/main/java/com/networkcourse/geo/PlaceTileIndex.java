@@ -0,0 +1,153 @@
+package com.networkcourse.geo;
+
+import com.networkcourse.models.InterestingPlace;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interesting places bucketed into fixed-size latitude/longitude tiles.
+ * A tile is covered once every place inside it has been downloaded, after that radius
+ * searches touching only covered tiles can be answered locally.
+ */
+public class PlaceTileIndex {
+    private static final double METERS_PER_DEGREE = 111_320;
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    private static class Tile {
+        final Map<String, InterestingPlace> places = new ConcurrentHashMap<>();
+        volatile long coveredUntil;
+    }
+
+    private final double tileDegrees;
+    private final long coverageTtlNanos;
+    private final int maxTiles;
+    private final Map<Long, Tile> tiles = new ConcurrentHashMap<>();
+
+    public PlaceTileIndex(double tileDegrees, long coverageTtlSeconds, int maxTiles) {
+        this.tileDegrees = tileDegrees;
+        this.coverageTtlNanos = TimeUnit.SECONDS.toNanos(coverageTtlSeconds);
+        this.maxTiles = maxTiles;
+    }
+
+    public List<Long> missingTiles(double lat, double lon, double radiusMeters) {
+        List<Long> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        forEachTile(lat, lon, radiusMeters, key -> {
+            Tile tile = tiles.get(key);
+            if (tile == null || tile.coveredUntil - now <= 0) {
+                missing.add(key);
+            }
+        });
+        return missing;
+    }
+
+    /**
+     * Returns {lonMin, latMin, lonMax, latMax} of the rectangle enclosing the given tiles.
+     */
+    public double[] bounds(Collection<Long> keys) {
+        int latMin = Integer.MAX_VALUE;
+        int latMax = Integer.MIN_VALUE;
+        int lonMin = Integer.MAX_VALUE;
+        int lonMax = Integer.MIN_VALUE;
+        for (long key : keys) {
+            int latIndex = (int) (key >> 32);
+            int lonIndex = (int) key;
+            latMin = Math.min(latMin, latIndex);
+            latMax = Math.max(latMax, latIndex);
+            lonMin = Math.min(lonMin, lonIndex);
+            lonMax = Math.max(lonMax, lonIndex);
+        }
+        return new double[] {lonMin * tileDegrees, latMin * tileDegrees,
+                (lonMax + 1) * tileDegrees, (latMax + 1) * tileDegrees};
+    }
+
+    public void addAll(Collection<InterestingPlace> places) {
+        for (InterestingPlace place : places) {
+            if (place.point == null || place.xid == null) {
+                continue;
+            }
+            tiles.computeIfAbsent(key(index(place.point.lat), index(place.point.lon)), ignored -> new Tile())
+                    .places.put(place.xid, place);
+        }
+    }
+
+    public void markCovered(Collection<Long> keys) {
+        long coveredUntil = System.nanoTime() + coverageTtlNanos;
+        for (long key : keys) {
+            tiles.computeIfAbsent(key, ignored -> new Tile()).coveredUntil = coveredUntil;
+        }
+        evictIfNeeded();
+    }
+
+    public List<InterestingPlace> query(double lat, double lon, double radiusMeters, int limit) {
+        List<InterestingPlace> found = new ArrayList<>();
+        Map<InterestingPlace, Double> distances = new IdentityHashMap<>();
+        forEachTile(lat, lon, radiusMeters, key -> {
+            Tile tile = tiles.get(key);
+            if (tile == null) {
+                return;
+            }
+            for (InterestingPlace place : tile.places.values()) {
+                double distance = distanceMeters(lat, lon, place.point.lat, place.point.lon);
+                if (distance <= radiusMeters) {
+                    found.add(place);
+                    distances.put(place, distance);
+                }
+            }
+        });
+        found.sort(Comparator.comparingDouble(distances::get));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    public int size() {
+        return tiles.size();
+    }
+
+    private void forEachTile(double lat, double lon, double radiusMeters, TileConsumer consumer) {
+        double latDelta = radiusMeters / METERS_PER_DEGREE;
+        double lonDelta = radiusMeters / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+        int latFrom = index(lat - latDelta);
+        int latTo = index(lat + latDelta);
+        int lonFrom = index(lon - lonDelta);
+        int lonTo = index(lon + lonDelta);
+        for (int latIndex = latFrom; latIndex <= latTo; latIndex++) {
+            for (int lonIndex = lonFrom; lonIndex <= lonTo; lonIndex++) {
+                consumer.accept(key(latIndex, lonIndex));
+            }
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (tiles.size() <= maxTiles) {
+            return;
+        }
+        List<Map.Entry<Long, Tile>> entries = new ArrayList<>(tiles.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().coveredUntil));
+        for (int i = 0; i < entries.size() - maxTiles; i++) {
+            tiles.remove(entries.get(i).getKey());
+        }
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / tileDegrees);
+    }
+
+    private static long key(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xffffffffL);
+    }
+
+    private static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+    }
+
+    private interface TileConsumer {
+        void accept(long key);
+    }
+}
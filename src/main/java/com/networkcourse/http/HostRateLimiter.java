@@ -0,0 +1,118 @@
+package com.networkcourse.http;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket per host. Requests to a host without a configured bucket are not throttled.
+ * A request waiting for its token gives it back when its search is cancelled, and a host
+ * with too many waiting requests fails new ones right away.
+ */
+public class HostRateLimiter {
+    private static class TokenBucket {
+        private final double permitsPerNano;
+        private final double burst;
+        private final int maxQueued;
+        private final AtomicInteger queued = new AtomicInteger();
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double permitsPerSecond, double burst, int maxQueued) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst = burst;
+            this.maxQueued = maxQueued;
+            this.tokens = burst;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * Takes one token, possibly going into debt, and returns how long the caller has to wait for it.
+         */
+        synchronized long reserve() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+            tokens -= 1;
+            if (tokens >= 0) {
+                return 0;
+            }
+            return (long) Math.ceil(-tokens / permitsPerNano);
+        }
+
+        /**
+         * Gives back a token reserved by a request that no longer waits for it.
+         */
+        synchronized void release() {
+            tokens = Math.min(burst, tokens + 1);
+        }
+    }
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     * @param maxQueued max requests waiting for a token of {@code host}, further ones fail
+     */
+    public void setLimit(String host, double permitsPerSecond, int burst, int maxQueued) {
+        if (permitsPerSecond <= 0) {
+            buckets.remove(host);
+            return;
+        }
+        buckets.put(host, new TokenBucket(permitsPerSecond, Math.max(1, burst), Math.max(1, maxQueued)));
+    }
+
+    public CompletableFuture<Void> acquire(String host) {
+        return acquire(host, SearchSession.NONE);
+    }
+
+    /**
+     * @return future completed when a request to {@code host} may be sent, cancelled with {@code session}
+     */
+    public CompletableFuture<Void> acquire(String host, SearchSession session) {
+        if (session.isCancelled()) {
+            return CompletableFuture.failedFuture(new CancellationException("Search was cancelled"));
+        }
+        TokenBucket bucket = buckets.get(host);
+        if (bucket == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (bucket.queued.incrementAndGet() > bucket.maxQueued) {
+            bucket.queued.decrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new IOException("More than " + bucket.maxQueued + " requests to \"" + host + "\" are waiting"));
+        }
+
+        long delay = bucket.reserve();
+        if (delay == 0) {
+            bucket.queued.decrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        throttled.increment();
+        queued.incrementAndGet();
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        permit.whenComplete((ignored, throwable) -> {
+            bucket.queued.decrementAndGet();
+            queued.decrementAndGet();
+            if (throwable != null) {
+                bucket.release();
+            }
+        });
+        CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> permit.complete(null));
+        return session.track(permit);
+    }
+
+    public int queuedRequests() {
+        return queued.get();
+    }
+
+    public long throttledRequests() {
+        return throttled.sum();
+    }
+}
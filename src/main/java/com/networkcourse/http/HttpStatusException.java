@@ -0,0 +1,19 @@
+package com.networkcourse.http;
+
+import java.io.IOException;
+
+/**
+ * Response with a status that is still retryable after all retries were used up.
+ */
+public class HttpStatusException extends IOException {
+    private final int statusCode;
+
+    public HttpStatusException(String host, int statusCode) {
+        super("Response code " + statusCode + " from \"" + host + "\"");
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,12 @@
+package com.networkcourse.http;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends requests for {@link com.networkcourse.RequestManager}, replaceable to run it without the network.
+ */
+public interface HttpTransport {
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler);
+}
@@ -0,0 +1,220 @@
+package com.networkcourse.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * In-process HTTP server standing in for the apis. Every api is served under its own path prefix.
+ * In {@link TransportMode#RECORD} mode requests are forwarded to the real api and successful responses
+ * are saved to {@code directory}. In {@link TransportMode#REPLAY} mode saved responses are served
+ * without the network, unknown requests get 404.
+ * Recordings are keyed by path and query without api keys, so they can be shared.
+ * Every response can be delayed and a share of them replaced by 503 to exercise retries.
+ */
+public class RecordReplayServer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecordReplayServer.class);
+    private static final Set<String> KEY_PARAMETERS = Set.of("key", "apikey", "appid");
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_GATEWAY = 502;
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+    private final TransportMode mode;
+    private final Path directory;
+    private final Map<String, String> upstreams;
+    private final HostRateLimiter rateLimiter;
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double errorRate;
+    private final HttpClient client;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService delays;
+
+    /**
+     * @param upstreams  api base url by path prefix, e.g. {@code "/weather"}
+     * @param rateLimiter limits requests forwarded to the apis in record mode
+     */
+    public RecordReplayServer(TransportMode mode, Path directory, Map<String, String> upstreams,
+                              HostRateLimiter rateLimiter, long latencyMillis, long latencyJitterMillis,
+                              double errorRate) throws IOException {
+        this.mode = mode;
+        this.directory = directory;
+        this.upstreams = upstreams;
+        this.rateLimiter = rateLimiter;
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.errorRate = errorRate;
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(20))
+                .build();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "record-replay-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        delays = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "record-replay-delays");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+        upstreams.keySet().forEach(prefix -> server.createContext(prefix, this::handle));
+        // the dispatcher thread inherits daemon status from the thread starting the server,
+        // so the stub never keeps the application alive
+        Thread starter = new Thread(server::start);
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("{} server for {} listening on {}, recordings in \"{}\"", mode, upstreams.values(), baseUrl(),
+                directory.toAbsolutePath());
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        delays.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) {
+        String prefix = exchange.getHttpContext().getPath();
+        String path = exchange.getRequestURI().getRawPath().substring(prefix.length());
+        String query = exchange.getRequestURI().getRawQuery();
+        Path recording = directory.resolve(prefix.substring(1)).resolve(recordingName(path, query));
+
+        int status;
+        byte[] body;
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            status = HTTP_SERVICE_UNAVAILABLE;
+            body = new byte[0];
+        } else if (mode == TransportMode.RECORD) {
+            String upstream = upstreams.get(prefix) + path + (query == null ? "" : "?" + query);
+            try {
+                rateLimiter.acquire(URI.create(upstream).getHost()).join();
+                HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(upstream)).GET().build(),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                status = response.statusCode();
+                body = response.body();
+                if (status == HTTP_OK) {
+                    save(recording, body);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not forward request to \"{}\": {}", URI.create(upstream).getHost(), e.toString());
+                status = HTTP_BAD_GATEWAY;
+                body = new byte[0];
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = HTTP_BAD_GATEWAY;
+                body = new byte[0];
+            }
+        } else if (Files.exists(recording)) {
+            try {
+                body = Files.readAllBytes(recording);
+                status = HTTP_OK;
+            } catch (IOException e) {
+                LOGGER.warn("Could not read recording \"{}\"", recording, e);
+                status = HTTP_NOT_FOUND;
+                body = new byte[0];
+            }
+        } else {
+            LOGGER.warn("No recording for \"{}{}\"", prefix, path);
+            status = HTTP_NOT_FOUND;
+            body = new byte[0];
+        }
+
+        int replyStatus = status;
+        byte[] replyBody = body;
+        long delay = latencyMillis + (latencyJitterMillis > 0
+                ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0);
+        if (delay <= 0) {
+            reply(exchange, replyStatus, replyBody);
+        } else {
+            delays.schedule(() -> executor.execute(() -> reply(exchange, replyStatus, replyBody)),
+                    delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void reply(HttpExchange exchange, int status, byte[] body) {
+        try (OutputStream output = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            output.write(body);
+        } catch (IOException ignored) {
+            exchange.close();
+        }
+    }
+
+    private static void save(Path recording, byte[] body) {
+        try {
+            Files.createDirectories(recording.getParent());
+            Path temporary = Files.createTempFile(recording.getParent(), "recording", ".tmp");
+            Files.write(temporary, body);
+            Files.move(temporary, recording, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not save recording \"{}\"", recording, e);
+        }
+    }
+
+    /**
+     * File name of the recording: path and a hash of the query parameters, sorted and without api keys.
+     */
+    static String recordingName(String path, String query) {
+        String parameters = query == null ? "" : Arrays.stream(query.split("&"))
+                .filter(parameter -> !KEY_PARAMETERS.contains(parameter.split("=", 2)[0]))
+                .sorted()
+                .collect(Collectors.joining("&"));
+        String name = path.replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "");
+        return (name.isEmpty() ? "" : name + "-") + sha256(parameters).substring(0, 32) + ".json";
+    }
+
+    private static String sha256(String text) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.networkcourse.http;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries 429 and 5xx responses with exponential backoff and full jitter, honoring Retry-After when present.
+ */
+public class RetryPolicy {
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final LongAdder retries = new LongAdder();
+
+    public RetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public boolean isRetryable(int statusCode) {
+        return statusCode == TOO_MANY_REQUESTS || (statusCode >= 500 && statusCode < 600);
+    }
+
+    public boolean shouldRetry(int statusCode, int attempt) {
+        return attempt < maxRetries && isRetryable(statusCode);
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public long delayMillis(HttpResponse<?> response, int attempt) {
+        Optional<Long> retryAfter = response.headers().firstValue("Retry-After").map(RetryPolicy::parseRetryAfter);
+        if (retryAfter.isPresent() && retryAfter.get() >= 0) {
+            return Math.min(retryAfter.get(), maxDelayMillis);
+        }
+        long backoff = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    public long retryCount() {
+        return retries.sum();
+    }
+
+    private static long parseRetryAfter(String value) {
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
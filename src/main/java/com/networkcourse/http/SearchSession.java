@@ -0,0 +1,58 @@
+package com.networkcourse.http;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token of one search. Requests started on behalf of a session are tracked by it,
+ * and {@link #cancel()} cancels all of them and makes later stages drop their results.
+ */
+public class SearchSession {
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    public static final SearchSession NONE = new SearchSession();
+
+    private final long generation = GENERATIONS.incrementAndGet();
+    private final Set<CompletableFuture<?>> requests = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void checkActive() {
+        if (cancelled) {
+            throw new CancellationException("Search " + generation + " was cancelled");
+        }
+    }
+
+    public <T> CompletableFuture<T> track(CompletableFuture<T> request) {
+        if (this == NONE) {
+            return request;
+        }
+        requests.add(request);
+        request.whenComplete((ignored, throwable) -> requests.remove(request));
+        if (cancelled) {
+            request.cancel(true);
+        }
+        return request;
+    }
+
+    public void cancel() {
+        if (this == NONE) {
+            return;
+        }
+        cancelled = true;
+        for (CompletableFuture<?> request : requests) {
+            request.cancel(true);
+        }
+        requests.clear();
+    }
+}
@@ -0,0 +1,10 @@
+package com.networkcourse.http;
+
+public enum TransportMode {
+    /** Requests go straight to the apis. */
+    LIVE,
+    /** Requests go to the apis through a local server that saves every successful response. */
+    RECORD,
+    /** Requests are answered by a local server from saved responses, without the network. */
+    REPLAY
+}
@@ -0,0 +1,213 @@
+package com.networkcourse.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one upstream api.
+ * Time to first byte covers connection setup as well, the JDK client does not report connect time separately.
+ * Body time is time spent blocked reading the response, parse time is the rest of the decoding.
+ */
+public class EndpointMetrics implements EndpointMetricsMXBean {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder[] statusClasses = new LongAdder[6];
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder deadlinesExceeded = new LongAdder();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+    private final LatencyHistogram body = new LatencyHistogram();
+    private final LatencyHistogram parse = new LatencyHistogram();
+
+    public EndpointMetrics() {
+        for (int i = 0; i < statusClasses.length; i++) {
+            statusClasses[i] = new LongAdder();
+        }
+    }
+
+    public long start() {
+        requests.increment();
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    public long recordHeaders(long startNanos, int statusCode) {
+        long now = System.nanoTime();
+        timeToFirstByte.record(now - startNanos);
+        statusClasses[Math.min(Math.max(statusCode / 100, 0), statusClasses.length - 1)].increment();
+        return now;
+    }
+
+    public void recordCompletion(long startNanos, long headersNanos, long bytes, long readNanos) {
+        long now = System.nanoTime();
+        bytesReceived.add(bytes);
+        body.record(readNanos);
+        parse.record(now - headersNanos - readNanos);
+        total.record(now - startNanos);
+        inFlight.decrement();
+    }
+
+    public void recordFailure() {
+        failures.increment();
+        inFlight.decrement();
+    }
+
+    public void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    public void recordCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    public void recordHedge() {
+        hedges.increment();
+    }
+
+    public void recordDeadlineExceeded() {
+        deadlinesExceeded.increment();
+    }
+
+    public String summary() {
+        return String.format(Locale.ENGLISH,
+                "%d requests (2xx %d, 4xx %d, 5xx %d, failed %d, hedged %d), in flight %d, %d KB, "
+                        + "cache %d/%d hits, %d deadlines exceeded, "
+                        + "total p50/p99/p999 %.1f/%.1f/%.1f ms, ttfb %.1f/%.1f/%.1f ms, "
+                        + "body %.1f/%.1f/%.1f ms, parse %.1f/%.1f/%.1f ms",
+                getRequestCount(), getStatus2xxCount(), getStatus4xxCount(), getStatus5xxCount(), getFailureCount(),
+                getHedgeCount(), getInFlight(), getBytesReceived() / 1024, getCacheHitCount(),
+                getCacheHitCount() + getCacheMissCount(), getDeadlineExceededCount(),
+                getTotalP50Millis(), getTotalP99Millis(), getTotalP999Millis(),
+                getTimeToFirstByteP50Millis(), getTimeToFirstByteP99Millis(), getTimeToFirstByteP999Millis(),
+                getBodyP50Millis(), getBodyP99Millis(), getBodyP999Millis(),
+                getParseP50Millis(), getParseP99Millis(), getParseP999Millis());
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getStatus2xxCount() {
+        return statusClasses[2].sum();
+    }
+
+    @Override
+    public long getStatus3xxCount() {
+        return statusClasses[3].sum();
+    }
+
+    @Override
+    public long getStatus4xxCount() {
+        return statusClasses[4].sum();
+    }
+
+    @Override
+    public long getStatus5xxCount() {
+        return statusClasses[5].sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    @Override
+    public long getDeadlineExceededCount() {
+        return deadlinesExceeded.sum();
+    }
+
+    @Override
+    public double getTotalP50Millis() {
+        return total.percentileMillis(0.5);
+    }
+
+    @Override
+    public double getTotalP99Millis() {
+        return total.percentileMillis(0.99);
+    }
+
+    @Override
+    public double getTotalP999Millis() {
+        return total.percentileMillis(0.999);
+    }
+
+    @Override
+    public double getTimeToFirstByteP50Millis() {
+        return timeToFirstByte.percentileMillis(0.5);
+    }
+
+    @Override
+    public double getTimeToFirstByteP99Millis() {
+        return timeToFirstByte.percentileMillis(0.99);
+    }
+
+    @Override
+    public double getTimeToFirstByteP999Millis() {
+        return timeToFirstByte.percentileMillis(0.999);
+    }
+
+    @Override
+    public double getBodyP50Millis() {
+        return body.percentileMillis(0.5);
+    }
+
+    @Override
+    public double getBodyP99Millis() {
+        return body.percentileMillis(0.99);
+    }
+
+    @Override
+    public double getBodyP999Millis() {
+        return body.percentileMillis(0.999);
+    }
+
+    @Override
+    public double getParseP50Millis() {
+        return parse.percentileMillis(0.5);
+    }
+
+    @Override
+    public double getParseP99Millis() {
+        return parse.percentileMillis(0.99);
+    }
+
+    @Override
+    public double getParseP999Millis() {
+        return parse.percentileMillis(0.999);
+    }
+}
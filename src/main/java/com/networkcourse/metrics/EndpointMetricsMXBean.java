@@ -0,0 +1,51 @@
+package com.networkcourse.metrics;
+
+public interface EndpointMetricsMXBean {
+    long getRequestCount();
+
+    long getFailureCount();
+
+    long getStatus2xxCount();
+
+    long getStatus3xxCount();
+
+    long getStatus4xxCount();
+
+    long getStatus5xxCount();
+
+    long getInFlight();
+
+    long getBytesReceived();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    long getHedgeCount();
+
+    long getDeadlineExceededCount();
+
+    double getTotalP50Millis();
+
+    double getTotalP99Millis();
+
+    double getTotalP999Millis();
+
+    double getTimeToFirstByteP50Millis();
+
+    double getTimeToFirstByteP99Millis();
+
+    double getTimeToFirstByteP999Millis();
+
+    double getBodyP50Millis();
+
+    double getBodyP99Millis();
+
+    double getBodyP999Millis();
+
+    double getParseP50Millis();
+
+    double getParseP99Millis();
+
+    double getParseP999Millis();
+}
@@ -0,0 +1,59 @@
+package com.networkcourse.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Response body that counts bytes and time spent blocked in reads, and reports them on close.
+ */
+public class MeteredInputStream extends FilterInputStream {
+    private final EndpointMetrics metrics;
+    private final long startNanos;
+    private final long headersNanos;
+    private long bytes;
+    private long readNanos;
+    private boolean closed;
+
+    public MeteredInputStream(InputStream in, EndpointMetrics metrics, long startNanos, long headersNanos) {
+        super(in);
+        this.metrics = metrics;
+        this.startNanos = startNanos;
+        this.headersNanos = headersNanos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int value = super.read();
+        readNanos += System.nanoTime() - start;
+        if (value >= 0) {
+            bytes++;
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int read = super.read(buffer, offset, length);
+        readNanos += System.nanoTime() - start;
+        if (read > 0) {
+            bytes += read;
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+        } finally {
+            metrics.recordCompletion(startNanos, headersNanos, bytes, readNanos);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.networkcourse.metrics;
+
+import com.networkcourse.Endpoint;
+import com.networkcourse.http.HostRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestMetrics.class);
+    private static final String OBJECT_NAME = "com.networkcourse:type=RequestMetrics,manager=%d,endpoint=%s";
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final int instance = INSTANCES.incrementAndGet();
+    private final Map<Endpoint, EndpointMetrics> endpoints = new EnumMap<>(Endpoint.class);
+    private final List<ObjectName> registered = new ArrayList<>();
+    private ScheduledExecutorService summaryScheduler;
+
+    public RequestMetrics() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpoints.put(endpoint, new EndpointMetrics());
+        }
+    }
+
+    public EndpointMetrics get(Endpoint endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * Registers one MBean per endpoint, named after this instance so that several managers can coexist.
+     */
+    public synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        endpoints.forEach((endpoint, metrics) -> {
+            try {
+                ObjectName name = new ObjectName(String.format(Locale.ROOT, OBJECT_NAME, instance,
+                        endpoint.name().toLowerCase(Locale.ROOT)));
+                server.registerMBean(metrics, name);
+                registered.add(name);
+            } catch (JMException e) {
+                LOGGER.warn("Can't register metrics MBean for {}", endpoint, e);
+            }
+        });
+    }
+
+    public synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                LOGGER.warn("Can't unregister metrics MBean {}", name, e);
+            }
+        }
+        registered.clear();
+    }
+
+    public synchronized void startSummary(long periodSeconds, HostRateLimiter rateLimiter) {
+        if (periodSeconds <= 0 || summaryScheduler != null) {
+            return;
+        }
+        summaryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "request-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        summaryScheduler.scheduleAtFixedRate(() -> logSummary(rateLimiter), periodSeconds, periodSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopSummary() {
+        if (summaryScheduler != null) {
+            summaryScheduler.shutdownNow();
+            summaryScheduler = null;
+        }
+    }
+
+    public void logSummary(HostRateLimiter rateLimiter) {
+        endpoints.forEach((endpoint, metrics) -> {
+            if (metrics.getRequestCount() + metrics.getCacheHitCount() > 0) {
+                LOGGER.info("{}: {}", endpoint, metrics.summary());
+            }
+        });
+        LOGGER.info("Rate limiter: {} queued, {} throttled", rateLimiter.queuedRequests(),
+                rateLimiter.throttledRequests());
+    }
+}
@@ -4,7 +4,13 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class InterestingPlace {
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Point {
+        public double lon;
+        public double lat;
+    }
     public String name;
     public String xid;
+    public Point point;
 }
     
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.networkcourse.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlaceReport {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Location {
+        public GeocodeResponse.GeocodePoint place;
+        public Weather weather;
+        public List<InterestingPlaceInfo> interestingPlaces;
+    }
+    public String query;
+    public List<Location> locations;
+    public String error;
+
+    public PlaceReport() {}
+
+    public PlaceReport(String query) {
+        this.query = query;
+    }
+}
@@ -0,0 +1,144 @@
+package com.networkcourse.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networkcourse.PlacePipeline;
+import com.networkcourse.models.PlaceReport;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves {@code GET /places?q=...} with geocode hits, weather and interesting places for the query.
+ * At most {@code maxPendingRequests} aggregations run at once; anything above that gets 503 right away.
+ */
+public class PlacesServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlacesServer.class);
+    private static final String PLACES_PATH = "/places";
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_METHOD_NOT_ALLOWED = 405;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+    private final PlacePipeline pipeline;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Semaphore pendingRequests;
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    public PlacesServer(PlacePipeline pipeline, int port, int threads, int maxPendingRequests) throws IOException {
+        this.pipeline = pipeline;
+        this.pendingRequests = new Semaphore(maxPendingRequests);
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "places-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(port), maxPendingRequests);
+        server.setExecutor(executor);
+        server.createContext(PLACES_PATH, this::handlePlaces);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info("Places server listening on port {}", getPort());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handlePlaces(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            send(exchange, HTTP_METHOD_NOT_ALLOWED, error("Only GET is supported"));
+            return;
+        }
+        String query;
+        try {
+            query = queryParameter(exchange.getRequestURI().getRawQuery(), "q");
+        } catch (IllegalArgumentException e) {
+            send(exchange, HTTP_BAD_REQUEST, error("Malformed query parameter \"q\""));
+            return;
+        }
+        if (query == null || query.isBlank()) {
+            send(exchange, HTTP_BAD_REQUEST, error("Missing query parameter \"q\""));
+            return;
+        }
+        if (!pendingRequests.tryAcquire()) {
+            LOGGER.warn("Rejected \"{}\": too many pending requests", query);
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, HTTP_SERVICE_UNAVAILABLE, error("Server is overloaded"));
+            return;
+        }
+
+        pipeline.resolve(query).whenCompleteAsync((report, throwable) -> {
+            try {
+                if (throwable != null) {
+                    LOGGER.error("Failed to resolve \"{}\"", query, throwable);
+                    send(exchange, HTTP_INTERNAL_ERROR, error("Failed to resolve \"" + query + "\""));
+                } else {
+                    send(exchange, HTTP_OK, report);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Can't send response for \"{}\"", query, e);
+            } finally {
+                pendingRequests.release();
+            }
+        }, executor);
+    }
+
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static PlaceReport error(String message) {
+        PlaceReport report = new PlaceReport();
+        report.error = message;
+        return report;
+    }
+
+    private static String queryParameter(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.networkcourse.server;
+
+import com.networkcourse.PlacePipeline;
+import com.networkcourse.RequestManager;
+
+import java.io.IOException;
+
+/**
+ * Headless entry point: {@code ServerMain [port] [--threads n] [--max-pending n]}.
+ */
+public class ServerMain {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_MAX_PENDING_REQUESTS = 256;
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int threads = DEFAULT_THREADS;
+        int maxPendingRequests = DEFAULT_MAX_PENDING_REQUESTS;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--max-pending" -> maxPendingRequests = Integer.parseInt(args[++i]);
+                default -> port = Integer.parseInt(args[i]);
+            }
+        }
+
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        RequestManager manager = new RequestManager(Runnable::run);
+        PlacesServer server = new PlacesServer(new PlacePipeline(manager), port, threads, maxPendingRequests);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            manager.close();
+        }));
+        server.start();
+    }
+}
@@ -0,0 +1,130 @@
+package com.networkcourse;
+
+import com.networkcourse.models.InterestingPlaceInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestManagerHedgeTest {
+    private static final byte[] PLACE_INFO = "{\"xid\":\"N1\",\"name\":\"Place\"}".getBytes(StandardCharsets.UTF_8);
+    private static final int WARM_UP_REQUESTS = 20;
+
+    private static CompletableFuture<byte[]> failAfter(long millis) {
+        return CompletableFuture.supplyAsync(() -> {
+            throw new CompletionException(new IOException("Connection reset"));
+        }, CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+    }
+
+    private static CompletableFuture<byte[]> answerAfter(long millis) {
+        return CompletableFuture.supplyAsync(() -> PLACE_INFO,
+                CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+    }
+
+    // answers with PLACE_INFO unless a body is scripted for the request's number
+    private final Map<Integer, CompletableFuture<byte[]>> scripted = new ConcurrentHashMap<>();
+    private final ScriptedTransport transport = new ScriptedTransport((index, request) ->
+            scripted.getOrDefault(index, CompletableFuture.completedFuture(PLACE_INFO)));
+    private RequestManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("GEOCODE_KEY", "test");
+        properties.setProperty("OPENWEATHER_KEY", "test");
+        properties.setProperty("OPEN_TRIP_MAP_KEY", "test");
+        properties.setProperty("GEOCODING_LIMIT_PLACES", "5");
+        properties.setProperty("OPEN_TRIP_MAP_LIMIT", "100");
+        properties.setProperty("OPEN_TRIP_MAP_RADIUS", "1000");
+        properties.setProperty("GEOCODE_API_URL", "http://localhost/api/1/geocode");
+        properties.setProperty("OPENWEATHER_API_URL", "http://localhost/data/2.5/weather");
+        properties.setProperty("OPEN_TRIP_MAP_API_URL", "http://localhost/0.1/ru/places");
+        for (Endpoint endpoint : Endpoint.values()) {
+            properties.setProperty(endpoint.property("CACHE_TTL_SECONDS"), "0");
+        }
+        properties.setProperty("HTTP_MAX_RETRIES", "0");
+        properties.setProperty("XID_HEDGE", "true");
+        properties.setProperty("HEDGE_MIN_DELAY_MS", "20");
+        manager = new RequestManager(properties, Runnable::run, transport);
+
+        // hedging starts once the endpoint has enough latency samples
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            manager.addPlaceInfo(place("N" + i)).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0, manager.getMetrics().get(Endpoint.XID).getHedgeCount());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    private static InterestingPlaceInfo place(String xid) {
+        InterestingPlaceInfo place = new InterestingPlaceInfo();
+        place.xid = xid;
+        return place;
+    }
+
+    @Test
+    void hedgeWinsAndSlowPrimaryIsCancelled() throws Exception {
+        scripted.put(WARM_UP_REQUESTS, new CompletableFuture<>());
+
+        manager.addPlaceInfo(place("hedged")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(WARM_UP_REQUESTS + 2, transport.sent.size());
+        // the losing attempt is cancelled right after the winner completes the caller's future
+        assertThrows(CancellationException.class,
+                () -> transport.sent.get(WARM_UP_REQUESTS).get(1, TimeUnit.SECONDS));
+        assertFalse(transport.sent.get(WARM_UP_REQUESTS + 1).isCompletedExceptionally());
+        assertEquals(1, manager.getMetrics().get(Endpoint.XID).getHedgeCount());
+    }
+
+    @Test
+    void hedgeAnswersWhenPrimaryFails() throws Exception {
+        scripted.put(WARM_UP_REQUESTS, failAfter(100));
+        scripted.put(WARM_UP_REQUESTS + 1, answerAfter(200));
+
+        manager.addPlaceInfo(place("hedged")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(WARM_UP_REQUESTS + 2, transport.sent.size());
+        assertEquals(1, manager.getMetrics().get(Endpoint.XID).getHedgeCount());
+    }
+
+    @Test
+    void failsWhenBothAttemptsFail() {
+        scripted.put(WARM_UP_REQUESTS, failAfter(100));
+        scripted.put(WARM_UP_REQUESTS + 1, failAfter(150));
+
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> manager.addPlaceInfo(place("hedged")).get(5, TimeUnit.SECONDS));
+        assertTrue(thrown.getCause() instanceof IOException);
+        assertEquals(WARM_UP_REQUESTS + 2, transport.sent.size());
+    }
+
+    @Test
+    void primaryFailingBeforeHedgeDelayIsNotHedged() throws Exception {
+        scripted.put(WARM_UP_REQUESTS, failAfter(0));
+
+        assertThrows(ExecutionException.class,
+                () -> manager.addPlaceInfo(place("hedged")).get(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        assertEquals(WARM_UP_REQUESTS + 1, transport.sent.size());
+        assertEquals(0, manager.getMetrics().get(Endpoint.XID).getHedgeCount());
+    }
+}
@@ -0,0 +1,155 @@
+package com.networkcourse;
+
+import com.networkcourse.models.GeocodeResponse;
+import com.networkcourse.models.InterestingPlace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestManagerPlaceIndexTest {
+    private static final int FETCH_LIMIT = 3;
+    private static final double TILE_DEGREES = 0.01;
+
+    private RequestManager manager;
+    private ScriptedTransport transport;
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    private void start(double tileDegrees, ScriptedTransport.Script script) {
+        Properties properties = new Properties();
+        properties.setProperty("GEOCODE_KEY", "test");
+        properties.setProperty("OPENWEATHER_KEY", "test");
+        properties.setProperty("OPEN_TRIP_MAP_KEY", "test");
+        properties.setProperty("GEOCODING_LIMIT_PLACES", "5");
+        properties.setProperty("OPEN_TRIP_MAP_LIMIT", "100");
+        properties.setProperty("OPEN_TRIP_MAP_RADIUS", "1000");
+        properties.setProperty("GEOCODE_API_URL", "http://localhost/api/1/geocode");
+        properties.setProperty("OPENWEATHER_API_URL", "http://localhost/data/2.5/weather");
+        properties.setProperty("OPEN_TRIP_MAP_API_URL", "http://localhost/0.1/ru/places");
+        properties.setProperty("HTTP_MAX_RETRIES", "0");
+        properties.setProperty("PLACE_INDEX_ENABLED", "true");
+        properties.setProperty("PLACE_INDEX_TILE_DEGREES", Double.toString(tileDegrees));
+        properties.setProperty("PLACE_INDEX_FETCH_LIMIT", Integer.toString(FETCH_LIMIT));
+        transport = new ScriptedTransport(script);
+        manager = new RequestManager(properties, Runnable::run, transport);
+    }
+
+    private static GeocodeResponse.GeocodePoint point(double lat, double lng) {
+        GeocodeResponse.GeocodePoint place = new GeocodeResponse.GeocodePoint();
+        place.name = "place";
+        place.point = new GeocodeResponse.GeocodePoint.Point();
+        place.point.lat = lat;
+        place.point.lng = lng;
+        return place;
+    }
+
+    private static Map<String, Double> query(HttpRequest request) {
+        Map<String, Double> bounds = new HashMap<>();
+        for (String parameter : request.uri().getRawQuery().split("&")) {
+            String[] pair = parameter.split("=", 2);
+            if (pair[0].endsWith("_min") || pair[0].endsWith("_max")) {
+                bounds.put(pair[0], Double.parseDouble(pair[1]));
+            }
+        }
+        return bounds;
+    }
+
+    private static CompletableFuture<byte[]> places(List<double[]> points) {
+        StringBuilder json = new StringBuilder("[");
+        for (double[] point : points) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            String xid = String.format(Locale.ENGLISH, "%.3f:%.3f", point[0], point[1]);
+            json.append(String.format(Locale.ENGLISH,
+                    "{\"name\":\"%s\",\"xid\":\"%s\",\"point\":{\"lat\":%f,\"lon\":%f}}",
+                    xid, xid, point[0], point[1]));
+        }
+        return CompletableFuture.completedFuture(json.append(']').toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Every tile has a place in its centre, the box answer is truncated to the fetch limit like the real api.
+     */
+    private static CompletableFuture<byte[]> tileCentres(int index, HttpRequest request) {
+        Map<String, Double> bounds = query(request);
+        List<double[]> points = new ArrayList<>();
+        for (double lat = bounds.get("lat_min") + TILE_DEGREES / 2; lat < bounds.get("lat_max"); lat += TILE_DEGREES) {
+            for (double lon = bounds.get("lon_min") + TILE_DEGREES / 2; lon < bounds.get("lon_max");
+                 lon += TILE_DEGREES) {
+                if (points.size() < FETCH_LIMIT) {
+                    points.add(new double[] {lat, lon});
+                }
+            }
+        }
+        return places(points);
+    }
+
+    private static List<String> xids(List<InterestingPlace> places) {
+        return places.stream().map(place -> place.xid).toList();
+    }
+
+    @Test
+    void truncatedBoxIsSplitUntilEveryTileIsCovered() throws Exception {
+        start(TILE_DEGREES, RequestManagerPlaceIndexTest::tileCentres);
+
+        List<InterestingPlace> places = manager.getInterestingPlacesAround(point(55.005, 82.925))
+                .get(5, TimeUnit.SECONDS);
+
+        // the first box of 3 x 5 tiles only returns the southern row, the centre comes from a split box
+        assertTrue(transport.requests.size() > 1);
+        assertEquals("/0.1/ru/places/bbox", transport.requests.get(0).uri().getPath());
+        assertEquals("55.005:82.925", places.get(0).xid);
+
+        int requests = transport.requests.size();
+        List<InterestingPlace> indexed = manager.getInterestingPlacesAround(point(55.005, 82.925))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(requests, transport.requests.size());
+        assertEquals(xids(places), xids(indexed));
+        assertEquals(requests, manager.getMetrics().get(Endpoint.BBOX).getRequestCount());
+    }
+
+    @Test
+    void splitBoxesStayInsideTheTruncatedOne() throws Exception {
+        start(TILE_DEGREES, RequestManagerPlaceIndexTest::tileCentres);
+
+        manager.getInterestingPlacesAround(point(55.005, 82.925)).get(5, TimeUnit.SECONDS);
+
+        Map<String, Double> first = query(transport.requests.get(0));
+        for (HttpRequest request : transport.requests.subList(1, transport.requests.size())) {
+            Map<String, Double> split = query(request);
+            assertTrue(split.get("lat_min") >= first.get("lat_min") && split.get("lat_max") <= first.get("lat_max"));
+            assertTrue(split.get("lon_min") >= first.get("lon_min") && split.get("lon_max") <= first.get("lon_max"));
+        }
+    }
+
+    @Test
+    void singleTileAtLimitIsCoveredWithFirstPlaces() throws Exception {
+        start(1, (index, request) -> places(List.of(
+                new double[] {55.5, 82.5}, new double[] {55.501, 82.5}, new double[] {55.502, 82.5})));
+
+        List<InterestingPlace> places = manager.getInterestingPlacesAround(point(55.5, 82.5))
+                .get(5, TimeUnit.SECONDS);
+        manager.getInterestingPlacesAround(point(55.5, 82.5)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, transport.requests.size());
+        assertEquals(List.of("55.500:82.500", "55.501:82.500", "55.502:82.500"), xids(places));
+    }
+}
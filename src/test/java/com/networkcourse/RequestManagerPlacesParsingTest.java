@@ -0,0 +1,127 @@
+package com.networkcourse;
+
+import com.networkcourse.http.SearchSession;
+import com.networkcourse.models.GeocodeResponse;
+import com.networkcourse.models.InterestingPlace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestManagerPlacesParsingTest {
+    private static final String PLACES = "["
+            + "{\"name\":\"\",\"xid\":\"W1\",\"kind\":\"other\",\"point\":{\"lon\":82.91,\"lat\":55.03}},"
+            + "{\"name\":\"Museum\",\"xid\":\"W2\",\"point\":{\"lon\":82.92,\"lat\":55.02},\"rate\":\"7h\"},"
+            + "{\"xid\":\"W3\",\"point\":{\"lon\":82.93,\"lat\":55.01}},"
+            + "{\"name\":\"Theatre\",\"xid\":\"W4\",\"point\":{\"lon\":82.94,\"lat\":55.00}}"
+            + "]";
+
+    private RequestManager manager;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("GEOCODE_KEY", "test");
+        properties.setProperty("OPENWEATHER_KEY", "test");
+        properties.setProperty("OPEN_TRIP_MAP_KEY", "test");
+        properties.setProperty("GEOCODING_LIMIT_PLACES", "5");
+        properties.setProperty("OPEN_TRIP_MAP_LIMIT", "100");
+        properties.setProperty("OPEN_TRIP_MAP_RADIUS", "1000");
+        properties.setProperty("GEOCODE_API_URL", "http://localhost/api/1/geocode");
+        properties.setProperty("OPENWEATHER_API_URL", "http://localhost/data/2.5/weather");
+        properties.setProperty("OPEN_TRIP_MAP_API_URL", "http://localhost/0.1/ru/places");
+        properties.setProperty("HTTP_MAX_RETRIES", "0");
+        manager = new RequestManager(properties, Runnable::run, new ScriptedTransport((index, request) ->
+                CompletableFuture.completedFuture(PLACES.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> xids(List<InterestingPlace> places) {
+        return places.stream().map(place -> place.xid).toList();
+    }
+
+    @Test
+    void unnamedPlacesAreDroppedWhileParsing() {
+        List<InterestingPlace> places = manager.parseResponsePlacesAround(body(PLACES));
+
+        assertEquals(List.of("W2", "W4"), xids(places));
+        assertEquals(55.02, places.get(0).point.lat, 1e-9);
+        assertEquals(82.92, places.get(0).point.lon, 1e-9);
+    }
+
+    @Test
+    void placesBeforeMalformedElementAreKept() {
+        String truncated = PLACES.substring(0, PLACES.indexOf("{\"name\":\"Theatre\"") + 20);
+
+        assertEquals(List.of("W2"), xids(manager.parseResponsePlacesAround(body(truncated))));
+    }
+
+    @Test
+    void responseThatIsNotArrayHasNoPlaces() {
+        assertTrue(manager.parseResponsePlacesAround(body("{\"error\":\"limit exceeded\"}")).isEmpty());
+        assertTrue(manager.parseResponsePlacesAround(body("")).isEmpty());
+    }
+
+    @Test
+    void requestedPlacesAreFiltered() throws Exception {
+        GeocodeResponse.GeocodePoint place = new GeocodeResponse.GeocodePoint();
+        place.name = "place";
+        place.point = new GeocodeResponse.GeocodePoint.Point();
+
+        assertEquals(List.of("W2", "W4"), xids(manager.getInterestingPlacesAround(place).get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void streamedPlacesAreFiltered() throws Exception {
+        GeocodeResponse.GeocodePoint place = new GeocodeResponse.GeocodePoint();
+        place.name = "place";
+        place.point = new GeocodeResponse.GeocodePoint.Point();
+        List<InterestingPlace> streamed = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        manager.streamInterestingPlacesAround(place, new SearchSession()).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(InterestingPlace item) {
+                streamed.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("W2", "W4"), xids(streamed));
+    }
+}
@@ -0,0 +1,128 @@
+package com.networkcourse;
+
+import com.networkcourse.http.HttpTransport;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+/**
+ * Answers requests with 200 and the body the script returns for them, without going to the network.
+ */
+class ScriptedTransport implements HttpTransport {
+    interface Script {
+        CompletableFuture<byte[]> body(int index, HttpRequest request);
+    }
+
+    final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+    final List<CompletableFuture<?>> sent = new CopyOnWriteArrayList<>();
+    private final Script script;
+
+    ScriptedTransport(Script script) {
+        this.script = script;
+    }
+
+    @Override
+    public synchronized <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                        HttpResponse.BodyHandler<T> handler) {
+        CompletableFuture<byte[]> body = script.body(sent.size(), request);
+        CompletableFuture<HttpResponse<T>> response = body.thenApply(bytes -> respond(request, handler, bytes));
+        requests.add(request);
+        sent.add(response);
+        return response;
+    }
+
+    private static <T> HttpResponse<T> respond(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                               byte[] bytes) {
+        HttpHeaders headers = HttpHeaders.of(Map.of(), (name, value) -> true);
+        HttpResponse.BodySubscriber<T> subscriber = handler.apply(new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        });
+        subscriber.onSubscribe(new Flow.Subscription() {
+            private boolean sentBody;
+            private boolean completed;
+
+            @Override
+            public synchronized void request(long n) {
+                for (long i = 0; i < n && !completed; i++) {
+                    if (!sentBody) {
+                        sentBody = true;
+                        subscriber.onNext(List.of(ByteBuffer.wrap(bytes)));
+                    } else {
+                        completed = true;
+                        subscriber.onComplete();
+                    }
+                }
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        T body = subscriber.getBody().toCompletableFuture().join();
+        return new HttpResponse<>() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpRequest request() {
+                return request;
+            }
+
+            @Override
+            public Optional<HttpResponse<T>> previousResponse() {
+                return Optional.empty();
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public T body() {
+                return body;
+            }
+
+            @Override
+            public Optional<SSLSession> sslSession() {
+                return Optional.empty();
+            }
+
+            @Override
+            public URI uri() {
+                return request.uri();
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+    }
+}
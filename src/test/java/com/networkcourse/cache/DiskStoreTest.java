@@ -0,0 +1,122 @@
+package com.networkcourse.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskStoreTest {
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private DiskStore open(long ttlSeconds) throws IOException {
+        DiskStore store = new DiskStore(directory.resolve("test.log"), ttlSeconds);
+        store.getLoaded().join();
+        return store;
+    }
+
+    @Test
+    void valuesSurviveReopen() throws IOException {
+        try (DiskStore store = open(60)) {
+            store.put("a", bytes("first"));
+            store.put("a", bytes("second"));
+            store.put("b", bytes("other"));
+        }
+
+        try (DiskStore store = open(60)) {
+            assertEquals(2, store.size());
+            assertArrayEquals(bytes("second"), store.get("a"));
+            assertArrayEquals(bytes("other"), store.get("b"));
+            assertNull(store.get("c"));
+        }
+    }
+
+    @Test
+    void storedValueKeepsWriteTime() throws IOException {
+        long before = System.currentTimeMillis();
+        try (DiskStore store = open(60)) {
+            store.put("a", bytes("value"));
+        }
+        long after = System.currentTimeMillis();
+
+        try (DiskStore store = open(60)) {
+            DiskStore.StoredValue stored = store.getStored("a");
+            assertArrayEquals(bytes("value"), stored.value);
+            assertTrue(stored.writtenAtMillis >= before && stored.writtenAtMillis <= after);
+        }
+    }
+
+    @Test
+    void truncatedRecordIsDroppedOnReopen() throws IOException {
+        try (DiskStore store = open(60)) {
+            store.put("a", bytes("kept"));
+            store.put("b", bytes("truncated"));
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve("test.log"), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (DiskStore store = open(60)) {
+            assertArrayEquals(bytes("kept"), store.get("a"));
+            assertNull(store.get("b"));
+            store.put("c", bytes("appended"));
+        }
+
+        try (DiskStore store = open(60)) {
+            assertEquals(2, store.size());
+            assertArrayEquals(bytes("kept"), store.get("a"));
+            assertArrayEquals(bytes("appended"), store.get("c"));
+        }
+    }
+
+    @Test
+    void expiredValuesAreNotLoaded() throws IOException {
+        try (DiskStore store = open(60)) {
+            store.put("a", bytes("value"));
+        }
+
+        try (DiskStore store = open(0)) {
+            assertNull(store.get("a"));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    void writesAfterCloseAreIgnored() throws IOException {
+        DiskStore store = open(60);
+        store.close();
+        store.put("a", bytes("value"));
+        store.clear();
+
+        assertNull(store.get("a"));
+        try (DiskStore reopened = open(60)) {
+            assertNull(reopened.get("a"));
+        }
+    }
+
+    @Test
+    void clearRemovesEverything() throws IOException {
+        try (DiskStore store = open(60)) {
+            store.put("a", bytes("value"));
+            store.clear();
+        }
+
+        try (DiskStore store = open(60)) {
+            assertNull(store.get("a"));
+            assertEquals(0, store.size());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.networkcourse.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LruResponseCacheTest {
+    @Test
+    void returnsValueWithinTtl() {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(60, 10, 100, value -> 1);
+        cache.put("a", "A");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void expiredValueIsOnlyReturnedAsStale() throws InterruptedException {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(1, 10, 100, value -> 1);
+        cache.put("a", "A", 990);
+        Thread.sleep(50);
+
+        assertNull(cache.get("a"));
+        assertEquals("A", cache.getStale("a"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void valueOlderThanTtlIsNotStored() {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(1, 10, 100, value -> 1);
+        cache.put("a", "A", 1000);
+
+        assertNull(cache.getStale("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void zeroTtlTurnsCacheOff() {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(0, 10, 100, value -> 1);
+        cache.put("a", "A");
+
+        assertNull(cache.getStale("a"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(60, 2, 100, value -> 1);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.getStale("b"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    void evictsByWeight() {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(60, 10, 10, String::length);
+        cache.put("a", "AAAA");
+        cache.put("b", "BBBB");
+        cache.put("c", "CCCC");
+        cache.put("d", "DDDDDDDDDDDD");
+
+        assertNull(cache.getStale("a"));
+        assertEquals("BBBB", cache.get("b"));
+        assertEquals("CCCC", cache.get("c"));
+        assertNull(cache.getStale("d"));
+        assertEquals(8, cache.weight());
+    }
+}
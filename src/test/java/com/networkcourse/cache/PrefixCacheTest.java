@@ -0,0 +1,54 @@
+package com.networkcourse.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PrefixCacheTest {
+    @Test
+    void findsExactKeysOnly() {
+        PrefixCache<String> cache = new PrefixCache<>(10);
+        cache.put("novo", "1");
+
+        assertEquals("1", cache.get("novo"));
+        assertNull(cache.get("nov"));
+        assertNull(cache.get("novos"));
+    }
+
+    @Test
+    void findsLongestCachedPrefix() {
+        PrefixCache<String> cache = new PrefixCache<>(10);
+        cache.put("no", "1");
+        cache.put("novo", "2");
+        cache.put("novosibirsk", "3");
+
+        assertEquals("2", cache.longestPrefix("novosib"));
+        assertEquals("3", cache.longestPrefix("novosibirsk"));
+        assertEquals("1", cache.longestPrefix("nor"));
+        assertNull(cache.longestPrefix("moscow"));
+    }
+
+    @Test
+    void overwritingKeepsSize() {
+        PrefixCache<String> cache = new PrefixCache<>(10);
+        cache.put("novo", "1");
+        cache.put("novo", "2");
+
+        assertEquals("2", cache.get("novo"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void dropsEverythingWhenFull() {
+        PrefixCache<String> cache = new PrefixCache<>(2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.size());
+    }
+}
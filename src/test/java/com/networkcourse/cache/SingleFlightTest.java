@@ -0,0 +1,89 @@
+package com.networkcourse.cache;
+
+import com.networkcourse.http.SearchSession;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final List<SearchSession> loads = new ArrayList<>();
+    private final List<CompletableFuture<String>> results = new ArrayList<>();
+
+    private CompletableFuture<String> load(SearchSession session) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        loads.add(session);
+        results.add(result);
+        return result;
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() {
+        CompletableFuture<String> first = flights.execute("a", this::load, SearchSession.NONE);
+        CompletableFuture<String> second = flights.execute("a", this::load, SearchSession.NONE);
+        results.get(0).complete("A");
+
+        assertEquals(1, loads.size());
+        assertEquals("A", first.join());
+        assertEquals("A", second.join());
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void cancellingOneCallerKeepsLoad() {
+        CompletableFuture<String> first = flights.execute("a", this::load, SearchSession.NONE);
+        CompletableFuture<String> second = flights.execute("a", this::load, SearchSession.NONE);
+        first.cancel(true);
+        results.get(0).complete("A");
+
+        assertFalse(loads.get(0).isCancelled());
+        assertEquals("A", second.join());
+    }
+
+    @Test
+    void lastCallerCancelCancelsLoad() {
+        CompletableFuture<String> first = flights.execute("a", this::load, SearchSession.NONE);
+        CompletableFuture<String> second = flights.execute("a", this::load, SearchSession.NONE);
+        first.cancel(true);
+        second.cancel(true);
+
+        assertTrue(loads.get(0).isCancelled());
+
+        CompletableFuture<String> third = flights.execute("a", this::load, SearchSession.NONE);
+        results.get(1).complete("A");
+
+        assertEquals(2, loads.size());
+        assertEquals("A", third.join());
+    }
+
+    @Test
+    void cancelledCallerSessionLeavesFlight() {
+        SearchSession caller = new SearchSession();
+        flights.execute("a", this::load, caller);
+        caller.cancel();
+
+        assertTrue(loads.get(0).isCancelled());
+    }
+
+    @Test
+    void failureReleasesKey() {
+        CompletableFuture<String> first = flights.execute("a", this::load, SearchSession.NONE);
+        results.get(0).completeExceptionally(new IOException("down"));
+
+        CompletionException thrown = assertThrows(CompletionException.class, first::join);
+        assertTrue(thrown.getCause() instanceof IOException);
+        assertEquals(0, flights.size());
+
+        flights.execute("a", this::load, SearchSession.NONE);
+        assertEquals(2, loads.size());
+    }
+}
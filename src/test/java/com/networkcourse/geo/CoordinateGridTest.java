@@ -0,0 +1,54 @@
+package com.networkcourse.geo;
+
+import com.networkcourse.models.GeocodeResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CoordinateGridTest {
+    private static GeocodeResponse.GeocodePoint point(double lat, double lng) {
+        GeocodeResponse.GeocodePoint place = new GeocodeResponse.GeocodePoint();
+        place.name = "place";
+        place.point = new GeocodeResponse.GeocodePoint.Point();
+        place.point.lat = lat;
+        place.point.lng = lng;
+        return place;
+    }
+
+    @Test
+    void nearbyPointsShareCellCentre() {
+        CoordinateGrid grid = new CoordinateGrid(0.05);
+        GeocodeResponse.GeocodePoint first = grid.cellCentre(point(55.011, 82.921));
+        GeocodeResponse.GeocodePoint second = grid.cellCentre(point(55.049, 82.949));
+
+        assertEquals(55.025, first.point.lat, 1e-9);
+        assertEquals(82.925, first.point.lng, 1e-9);
+        assertEquals(first.point.lat, second.point.lat, 1e-9);
+        assertEquals(first.point.lng, second.point.lng, 1e-9);
+        assertEquals("place", first.name);
+    }
+
+    @Test
+    void negativeCoordinatesSnapDown() {
+        GeocodeResponse.GeocodePoint centre = new CoordinateGrid(0.05).cellCentre(point(-0.01, -0.01));
+
+        assertEquals(-0.025, centre.point.lat, 1e-9);
+        assertEquals(-0.025, centre.point.lng, 1e-9);
+    }
+
+    @Test
+    void centresAreClampedToValidRange() {
+        GeocodeResponse.GeocodePoint centre = new CoordinateGrid(1).cellCentre(point(90, 180));
+
+        assertEquals(90, centre.point.lat, 1e-9);
+        assertEquals(180, centre.point.lng, 1e-9);
+    }
+
+    @Test
+    void zeroCellSizeKeepsPoint() {
+        GeocodeResponse.GeocodePoint place = point(55.011, 82.921);
+
+        assertSame(place, new CoordinateGrid(0).cellCentre(place));
+    }
+}
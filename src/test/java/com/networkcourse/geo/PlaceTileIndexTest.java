@@ -0,0 +1,110 @@
+package com.networkcourse.geo;
+
+import com.networkcourse.models.InterestingPlace;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlaceTileIndexTest {
+    private static InterestingPlace place(String xid, double lat, double lon) {
+        InterestingPlace place = new InterestingPlace();
+        place.xid = xid;
+        place.name = xid;
+        place.point = new InterestingPlace.Point();
+        place.point.lat = lat;
+        place.point.lon = lon;
+        return place;
+    }
+
+    @Test
+    void everyTileTouchedByRadiusIsMissingUntilCovered() {
+        PlaceTileIndex index = new PlaceTileIndex(0.01, 60, 100);
+        // 1000 m is about 0.009 degrees of latitude and 0.0157 degrees of longitude at 55 degrees north
+        List<Long> missing = index.missingTiles(55.005, 82.925, 1000);
+
+        assertEquals(3 * 5, missing.size());
+
+        index.markCovered(missing.subList(0, 7));
+        assertEquals(missing.subList(7, missing.size()), index.missingTiles(55.005, 82.925, 1000));
+
+        index.markCovered(missing.subList(7, missing.size()));
+        assertTrue(index.missingTiles(55.005, 82.925, 1000).isEmpty());
+    }
+
+    @Test
+    void coverageExpires() {
+        PlaceTileIndex index = new PlaceTileIndex(0.01, 0, 100);
+        List<Long> missing = index.missingTiles(55.005, 82.925, 100);
+
+        index.markCovered(missing);
+
+        assertEquals(missing, index.missingTiles(55.005, 82.925, 100));
+    }
+
+    @Test
+    void boundsEncloseTiles() {
+        PlaceTileIndex index = new PlaceTileIndex(0.01, 60, 100);
+        List<Long> missing = index.missingTiles(55.005, 82.925, 1000);
+
+        assertArrayEquals(new double[] {82.90, 54.99, 82.95, 55.02}, index.bounds(missing), 1e-9);
+        assertArrayEquals(new double[] {82.90, 54.99, 82.95, 55.00}, index.bounds(missing.subList(0, 5)), 1e-9);
+        assertArrayEquals(new double[] {82.92, 55.00, 82.93, 55.01}, index.bounds(missing.subList(7, 8)), 1e-9);
+    }
+
+    @Test
+    void boundsOfNegativeTiles() {
+        PlaceTileIndex index = new PlaceTileIndex(0.01, 60, 100);
+
+        assertArrayEquals(new double[] {-0.01, -0.01, 0, 0},
+                index.bounds(index.missingTiles(-0.005, -0.005, 10)), 1e-9);
+    }
+
+    @Test
+    void queryReturnsNearestPlacesWithinRadius() {
+        PlaceTileIndex index = new PlaceTileIndex(0.01, 60, 100);
+        index.addAll(List.of(
+                place("far", 55.012, 82.925),
+                place("near", 55.006, 82.925),
+                place("outside", 55.02, 82.925),
+                place("nearest", 55.005, 82.9251)));
+
+        List<InterestingPlace> found = index.query(55.005, 82.925, 1000, 10);
+
+        assertEquals(List.of("nearest", "near", "far"), found.stream().map(place -> place.xid).toList());
+        assertEquals(List.of("nearest", "near"),
+                index.query(55.005, 82.925, 1000, 2).stream().map(place -> place.xid).toList());
+    }
+
+    @Test
+    void placesWithoutPointOrXidAreSkipped() {
+        PlaceTileIndex index = new PlaceTileIndex(0.01, 60, 100);
+        InterestingPlace withoutPoint = place("no point", 55.005, 82.925);
+        withoutPoint.point = null;
+        InterestingPlace withoutXid = place("no xid", 55.005, 82.925);
+        withoutXid.xid = null;
+
+        index.addAll(List.of(withoutPoint, withoutXid, place("same", 55.005, 82.925), place("same", 55.005, 82.925)));
+
+        assertEquals(1, index.query(55.005, 82.925, 100, 10).size());
+    }
+
+    @Test
+    void oldestCoveredTilesAreEvicted() throws InterruptedException {
+        PlaceTileIndex index = new PlaceTileIndex(0.01, 60, 2);
+        List<Long> missing = index.missingTiles(55.005, 82.925, 1000);
+
+        index.markCovered(missing.subList(0, 2));
+        Thread.sleep(1);
+        index.markCovered(missing.subList(2, 3));
+
+        List<Long> stillMissing = index.missingTiles(55.005, 82.925, 1000);
+        assertEquals(2, index.size());
+        assertEquals(missing.size() - 2, stillMissing.size());
+        assertFalse(stillMissing.contains(missing.get(2)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.networkcourse.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HostRateLimiterTest {
+    @Test
+    void hostWithoutLimitIsNotThrottled() {
+        HostRateLimiter limiter = new HostRateLimiter();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.acquire("example.com").isDone());
+        }
+        assertEquals(0, limiter.throttledRequests());
+    }
+
+    @Test
+    void burstIsServedThenRequestsWait() throws Exception {
+        HostRateLimiter limiter = new HostRateLimiter();
+        limiter.setLimit("example.com", 10, 2, 10);
+
+        assertTrue(limiter.acquire("example.com").isDone());
+        assertTrue(limiter.acquire("example.com").isDone());
+        long start = System.nanoTime();
+        CompletableFuture<Void> third = limiter.acquire("example.com");
+
+        assertFalse(third.isDone());
+        assertEquals(1, limiter.throttledRequests());
+        assertEquals(1, limiter.queuedRequests());
+        assertTrue(limiter.acquire("other.com").isDone());
+
+        third.get(1, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, limiter.queuedRequests());
+    }
+
+    @Test
+    void zeroRateRemovesLimit() {
+        HostRateLimiter limiter = new HostRateLimiter();
+        limiter.setLimit("example.com", 1, 1, 10);
+        limiter.setLimit("example.com", 0, 1, 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.acquire("example.com").isDone());
+        }
+    }
+
+    @Test
+    void cancelledSessionDoesNotTakeToken() {
+        HostRateLimiter limiter = new HostRateLimiter();
+        limiter.setLimit("example.com", 1, 1, 10);
+        SearchSession session = new SearchSession();
+        session.cancel();
+
+        CompletableFuture<Void> cancelled = limiter.acquire("example.com", session);
+
+        assertTrue(cancelled.isCompletedExceptionally());
+        assertTrue(limiter.acquire("example.com").isDone());
+    }
+
+    @Test
+    void cancelledWaitingRequestGivesTokenBack() throws Exception {
+        HostRateLimiter limiter = new HostRateLimiter();
+        limiter.setLimit("example.com", 1, 1, 10);
+        assertTrue(limiter.acquire("example.com").isDone());
+        SearchSession session = new SearchSession();
+        CompletableFuture<Void> waiting = limiter.acquire("example.com", session);
+
+        session.cancel();
+
+        assertThrows(CancellationException.class, waiting::join);
+        assertEquals(0, limiter.queuedRequests());
+        // without the returned token the next request would wait for two refills
+        limiter.acquire("example.com").get(1500, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void requestsBeyondQueueLimitFail() {
+        HostRateLimiter limiter = new HostRateLimiter();
+        limiter.setLimit("example.com", 1, 1, 2);
+        assertTrue(limiter.acquire("example.com").isDone());
+        SearchSession session = new SearchSession();
+        limiter.acquire("example.com", session);
+        limiter.acquire("example.com", session);
+
+        CompletableFuture<Void> rejected = limiter.acquire("example.com", session);
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(thrown.getCause() instanceof IOException);
+        assertEquals(2, limiter.queuedRequests());
+        session.cancel();
+        assertEquals(0, limiter.queuedRequests());
+    }
+}
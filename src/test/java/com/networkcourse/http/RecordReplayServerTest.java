@@ -0,0 +1,56 @@
+package com.networkcourse.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordReplayServerTest {
+    @Test
+    void apiKeysDoNotChangeRecordingName() {
+        String recorded = RecordReplayServer.recordingName("/radius", "lat=55.03&lon=82.92&apikey=first");
+
+        assertEquals(recorded, RecordReplayServer.recordingName("/radius", "lat=55.03&lon=82.92&apikey=second"));
+        assertEquals(recorded, RecordReplayServer.recordingName("/radius", "lat=55.03&lon=82.92"));
+        assertEquals(RecordReplayServer.recordingName("/weather", "lat=55.03&lon=82.92"),
+                RecordReplayServer.recordingName("/weather", "appid=secret&lat=55.03&lon=82.92"));
+        assertEquals(RecordReplayServer.recordingName("/", "q=Novosibirsk&locale=ru"),
+                RecordReplayServer.recordingName("/", "q=Novosibirsk&key=secret&locale=ru"));
+    }
+
+    @Test
+    void keysAreNotWrittenIntoRecordingName() {
+        String name = RecordReplayServer.recordingName("/radius", "apikey=secret&lat=55.03");
+
+        assertTrue(name.startsWith("radius-"), name);
+        assertTrue(name.endsWith(".json"), name);
+        assertFalse(name.contains("secret"), name);
+    }
+
+    @Test
+    void onlyWholeKeyParametersAreStripped() {
+        assertNotEquals(RecordReplayServer.recordingName("/", "q=Novosibirsk"),
+                RecordReplayServer.recordingName("/", "q=Novosibirsk&monkey=1"));
+        assertNotEquals(RecordReplayServer.recordingName("/", "q=Novosibirsk"),
+                RecordReplayServer.recordingName("/", "q=Novosibirsk&key_type=1"));
+    }
+
+    @Test
+    void parameterOrderDoesNotMatter() {
+        assertEquals(RecordReplayServer.recordingName("/radius", "lat=55.03&lon=82.92"),
+                RecordReplayServer.recordingName("/radius", "lon=82.92&lat=55.03"));
+        assertNotEquals(RecordReplayServer.recordingName("/radius", "lat=55.03&lon=82.92"),
+                RecordReplayServer.recordingName("/radius", "lat=55.03&lon=82.93"));
+    }
+
+    @Test
+    void pathsWithoutQueryAreNamedByPath() {
+        assertEquals(RecordReplayServer.recordingName("/xid/N1", null),
+                RecordReplayServer.recordingName("/xid/N1", ""));
+        assertNotEquals(RecordReplayServer.recordingName("/xid/N1", null),
+                RecordReplayServer.recordingName("/xid/N2", null));
+        assertTrue(RecordReplayServer.recordingName("/xid/N1", null).startsWith("xid_N1-"));
+    }
+}
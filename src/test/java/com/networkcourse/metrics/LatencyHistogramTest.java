@@ -0,0 +1,74 @@
+package com.networkcourse.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    private static long upperBoundNanos(long nanos) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(nanos);
+        return Math.round(histogram.percentileMillis(1) * 1e6);
+    }
+
+    @Test
+    void smallValuesHaveExactBuckets() {
+        for (long nanos = 0; nanos < 8; nanos++) {
+            assertEquals(nanos + 1, upperBoundNanos(nanos));
+        }
+    }
+
+    @Test
+    void upperBoundIsWithinEighthOfValue() {
+        for (long nanos = 8; nanos < TimeUnit.SECONDS.toNanos(100); nanos = nanos * 21 / 20 + 1) {
+            long upperBound = upperBoundNanos(nanos);
+            assertTrue(upperBound > nanos, nanos + " -> " + upperBound);
+            assertTrue(upperBound <= nanos * 1.125 + 1, nanos + " -> " + upperBound);
+        }
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        for (int exponent = 3; exponent <= 40; exponent++) {
+            long step = 1L << (exponent - 3);
+            for (long lowerBound = 1L << exponent; lowerBound < 1L << (exponent + 1); lowerBound += step) {
+                long upperBound = lowerBound + step;
+                assertEquals(upperBound, upperBoundNanos(lowerBound));
+                assertEquals(upperBound, upperBoundNanos(upperBound - 1));
+            }
+        }
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        assertEquals(1, upperBoundNanos(-5));
+        assertEquals(1L << 41, upperBoundNanos(Long.MAX_VALUE));
+        assertEquals(1L << 41, upperBoundNanos((1L << 41) - 1));
+    }
+
+    @Test
+    void percentilesFollowRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(100, histogram.count());
+        double p50 = histogram.percentileMillis(0.5);
+        double p99 = histogram.percentileMillis(0.99);
+        assertTrue(p50 > 50 && p50 <= 50 * 1.125, Double.toString(p50));
+        assertTrue(p99 > 99 && p99 <= 99 * 1.125, Double.toString(p99));
+        assertTrue(histogram.percentileMillis(0.999) >= p99);
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileMillis(0.99));
+    }
+}
@@ -0,0 +1,34 @@
+package com.networkcourse.metrics;
+
+import com.networkcourse.Endpoint;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestMetricsTest {
+    private static int registeredCount() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        return server.queryNames(new ObjectName("com.networkcourse:type=RequestMetrics,*"), null).size();
+    }
+
+    @Test
+    void instancesRegisterSideBySideAndUnregister() throws Exception {
+        int before = registeredCount();
+        RequestMetrics first = new RequestMetrics();
+        RequestMetrics second = new RequestMetrics();
+        first.registerMBeans();
+        second.registerMBeans();
+        int perInstance = Endpoint.values().length;
+        assertEquals(before + 2 * perInstance, registeredCount());
+
+        first.unregisterMBeans();
+        assertEquals(before + perInstance, registeredCount());
+
+        second.unregisterMBeans();
+        assertEquals(before, registeredCount());
+    }
+}